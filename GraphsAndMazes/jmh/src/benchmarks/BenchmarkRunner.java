@@ -0,0 +1,39 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <P>
+ * Runs the graph benchmarks with the gc profiler attached, so every result
+ * includes the allocation rate next to throughput and p99 latency, and saves
+ * the results as JSON for comparison between runs.
+ * </P>
+ *
+ * <P>
+ * Any standard JMH command line options may be given, for example
+ * "-p size=100,500" to limit the maze sizes, or a benchmark name pattern.
+ * </P>
+ */
+public class BenchmarkRunner {
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+		CommandLineOptions commandLine = new CommandLineOptions(args);
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.parent(commandLine)
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.JSON)
+				.result("jmh-results.json");
+		if (commandLine.getIncludes().isEmpty()) {
+			options.include(MazeGraphBenchmark.class.getSimpleName());
+			options.include(ParallelScalingBenchmark.class.getSimpleName());
+		}
+		new Runner(options.build()).run();
+	}
+}
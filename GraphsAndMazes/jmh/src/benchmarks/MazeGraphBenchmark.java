@@ -0,0 +1,185 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import graph.CompactGraph;
+import graph.GraphAlgorithmObserver;
+import graph.GridMazeGraph;
+import graph.MazeGraph;
+import maze.Juncture;
+import maze.Maze;
+
+/**
+ * <P>
+ * JMH benchmarks of MazeGraph construction and of BFS, DFS and Dijkstra's
+ * algorithm from the upper left to the lower right corner, across maze sizes
+ * and sparcity levels, on each search engine: the adjacency maps of MazeGraph,
+ * the implicit grid of GridMazeGraph and the CSR arrays of CompactGraph.
+ * </P>
+ *
+ * <P>
+ * MazeGraph's DoBFS and DoDFS run on its cached CSR snapshot once the graph
+ * stops changing, which is what compactBfs and compactDfs measure, so the map
+ * benchmarks use bfsVisitOrder and dfsVisitOrder, which always walk the
+ * adjacency maps.
+ * </P>
+ *
+ * <P>
+ * Every maze is built from a fixed seed, so each run measures the same
+ * mazes. Throughput and sampled latency (with p99) are reported for every
+ * benchmark; run through BenchmarkRunner to add the allocation rate from the
+ * gc profiler.
+ * </P>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx16g" })
+public class MazeGraphBenchmark {
+
+	private static final long SEED = 20200201L;
+
+	@Param({ "100", "500", "1000", "2000", "4000" })
+	public int size;
+
+	@Param({ "0", "50", "100" })
+	public int sparcity;
+
+	private Maze maze;
+	private MazeGraph mazeGraph;
+	private GridMazeGraph gridGraph;
+	private CompactGraph<Juncture> compactGraph;
+	private Juncture start, end;
+	private CountingObserver observer;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		maze = new Maze(size, size, sparcity, SEED);
+		observer = new CountingObserver();
+		mazeGraph = new MazeGraph(maze);
+		mazeGraph.addObserver(observer);
+		gridGraph = new GridMazeGraph(maze);
+		gridGraph.addObserver(observer);
+		compactGraph = mazeGraph.toCompactGraph();
+		compactGraph.addObserver(observer);
+		start = new Juncture(0, 0);
+		end = new Juncture(size - 1, size - 1);
+	}
+
+	@Benchmark
+	public MazeGraph construct() {
+		return new MazeGraph(maze);
+	}
+
+	@Benchmark
+	public List<Juncture> mapBfs() {
+		return mazeGraph.bfsVisitOrder(start, end);
+	}
+
+	@Benchmark
+	public List<Juncture> mapDfs() {
+		return mazeGraph.dfsVisitOrder(start, end);
+	}
+
+	@Benchmark
+	public void dijkstra(Blackhole hole) {
+		mazeGraph.DoDijsktra(start, end);
+		hole.consume(observer.take());
+	}
+
+	@Benchmark
+	public List<Juncture> dijkstraPath() {
+		return mazeGraph.dijkstraPath(start, end);
+	}
+
+	@Benchmark
+	public void gridBfs(Blackhole hole) {
+		gridGraph.DoBFS(start, end);
+		hole.consume(observer.take());
+	}
+
+	@Benchmark
+	public void gridDfs(Blackhole hole) {
+		gridGraph.DoDFS(start, end);
+		hole.consume(observer.take());
+	}
+
+	@Benchmark
+	public void gridDijkstra(Blackhole hole) {
+		gridGraph.DoDijsktra(start, end);
+		hole.consume(observer.take());
+	}
+
+	@Benchmark
+	public void compactBfs(Blackhole hole) {
+		compactGraph.DoBFS(start, end);
+		hole.consume(observer.take());
+	}
+
+	@Benchmark
+	public void compactDfs(Blackhole hole) {
+		compactGraph.DoDFS(start, end);
+		hole.consume(observer.take());
+	}
+
+	@Benchmark
+	public void compactDijkstra(Blackhole hole) {
+		compactGraph.DoDijsktra(start, end);
+		hole.consume(observer.take());
+	}
+
+	/*
+	 * Counts notifications, so the searches have an observable result that JMH
+	 * can consume, at the cost of one increment per event.
+	 */
+	static class CountingObserver implements GraphAlgorithmObserver<Juncture> {
+		private long events;
+
+		long take() {
+			long count = events;
+			events = 0;
+			return count;
+		}
+
+		public void notifyDFSHasBegun() {
+		}
+
+		public void notifyBFSHasBegun() {
+		}
+
+		public void notifyVisit(Juncture vertexBeingVisited) {
+			events++;
+		}
+
+		public void notifySearchIsOver() {
+		}
+
+		public void notifyDijkstraHasBegun() {
+		}
+
+		public void notifyDijkstraVertexFinished(Juncture vertexAddedToFinishedSet, Integer costOfPath) {
+			events++;
+		}
+
+		public void notifyDijkstraIsOver(List<Juncture> path) {
+			events += path.size();
+		}
+	}
+}
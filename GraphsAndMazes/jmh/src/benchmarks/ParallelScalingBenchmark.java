@@ -0,0 +1,137 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import graph.DistanceMatrix;
+import graph.SpanningForest;
+import graph.WeightedGraph;
+
+/**
+ * <P>
+ * JMH benchmarks of how the parallel engines of WeightedGraph (Boruvka's
+ * minimum spanning forest, Floyd-Warshall and repeated Dijkstra all-pairs
+ * costs) scale with the parallelism of the ForkJoinPool they run on, with
+ * Kruskal's and Prim's algorithms as sequential baselines.
+ * </P>
+ *
+ * <P>
+ * The graph is a seeded random grid-like graph, so every run measures the same
+ * work. The sequential baselines do not depend on cores; narrow them with
+ * "-p cores=1" to avoid repeating them. Parallelism beyond the number of
+ * available processors only measures the pool's overhead.
+ * </P>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx8g" })
+public class ParallelScalingBenchmark {
+
+	private static final long SEED = 42L;
+
+	@Param({ "700" })
+	public int side;
+
+	@Param({ "800" })
+	public int regionSize;
+
+	@Param({ "1", "2", "4", "8" })
+	public int cores;
+
+	private WeightedGraph<Integer> graph;
+	private List<Integer> region;
+	private ForkJoinPool pool;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		graph = grid(side, new Random(SEED));
+		region = new ArrayList<Integer>();
+		int regionSide = (int) Math.sqrt(regionSize);
+		for (int y = 0; y < regionSide; y++) {
+			for (int x = 0; x < regionSide; x++) {
+				region.add(y * side + x);
+			}
+		}
+		pool = new ForkJoinPool(cores);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public SpanningForest<Integer> kruskal() {
+		return graph.kruskalMST();
+	}
+
+	@Benchmark
+	public SpanningForest<Integer> prim() {
+		return graph.primMST();
+	}
+
+	@Benchmark
+	public SpanningForest<Integer> boruvka() {
+		return graph.boruvkaMST(pool);
+	}
+
+	@Benchmark
+	public DistanceMatrix<Integer> floydWarshall() {
+		return graph.floydWarshall(region, pool);
+	}
+
+	@Benchmark
+	public DistanceMatrix<Integer> allPairsDijkstra() {
+		return graph.allPairsDijkstra(region, pool);
+	}
+
+	/*
+	 * A side x side grid with random weights from 1 to 9 on edges in both
+	 * directions, and a few random long-range edges.
+	 */
+	private static WeightedGraph<Integer> grid(int side, Random random) {
+		WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+		for (int v = 0; v < side * side; v++) {
+			graph.addVertex(v);
+		}
+		for (int y = 0; y < side; y++) {
+			for (int x = 0; x < side; x++) {
+				int v = y * side + x;
+				if (x + 1 < side) {
+					int w = 1 + random.nextInt(9);
+					graph.addEdge(v, v + 1, w);
+					graph.addEdge(v + 1, v, w);
+				}
+				if (y + 1 < side) {
+					int w = 1 + random.nextInt(9);
+					graph.addEdge(v, v + side, w);
+					graph.addEdge(v + side, v, w);
+				}
+			}
+		}
+		for (int i = 0; i < side; i++) {
+			graph.addEdge(random.nextInt(side * side), random.nextInt(side * side), 1 + random.nextInt(9));
+		}
+		return graph;
+	}
+}
@@ -0,0 +1,149 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <P>
+ * All-pairs shortest-path costs over a small region of a graph, given as a
+ * local CSR copy of the subgraph the region induces. Rows of the result are
+ * computed in parallel on a ForkJoinPool, either by Floyd-Warshall or by one
+ * Dijkstra search per row.
+ * </P>
+ */
+class AllPairs<V> {
+
+	private static final int UNREACHED = Integer.MAX_VALUE;
+
+	private final List<V> region;
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] weights;
+
+	/**
+	 * Copy the edges between vertices of the region into CSR arrays indexed by
+	 * position in the region.
+	 *
+	 * @param region
+	 *            distinct vertices of the graph
+	 * @param adjacency
+	 *            the vertex to (neighbor to weight) map of the graph
+	 */
+	AllPairs(List<V> region, Map<V, Map<V, Integer>> adjacency) {
+		this.region = new ArrayList<V>(region);
+		int n = region.size();
+		Map<V, Integer> local = new HashMap<V, Integer>(n * 2);
+		for (V vertex : region) {
+			local.put(vertex, local.size());
+		}
+		offsets = new int[n + 1];
+		List<int[]> edges = new ArrayList<int[]>();
+		for (int i = 0; i < n; i++) {
+			offsets[i] = edges.size();
+			for (Map.Entry<V, Integer> edge : adjacency.get(region.get(i)).entrySet()) {
+				Integer j = local.get(edge.getKey());
+				if (j != null) {
+					edges.add(new int[] { j, edge.getValue() });
+				}
+			}
+		}
+		offsets[n] = edges.size();
+		targets = new int[edges.size()];
+		weights = new int[edges.size()];
+		for (int e = 0; e < edges.size(); e++) {
+			targets[e] = edges.get(e)[0];
+			weights[e] = edges.get(e)[1];
+		}
+	}
+
+	/**
+	 * <P>
+	 * Floyd-Warshall: for each intermediate vertex k in turn, every row i is
+	 * relaxed through k. Rows only read row k, which does not change during
+	 * round k, so the rows of one round are updated in parallel.
+	 * </P>
+	 */
+	DistanceMatrix<V> floydWarshall(ForkJoinPool pool) {
+		final int n = region.size();
+		final int[] dist = new int[n * n];
+		Arrays.fill(dist, UNREACHED);
+		for (int i = 0; i < n; i++) {
+			dist[i * n + i] = 0;
+			for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+				int j = i * n + targets[e];
+				dist[j] = Math.min(dist[j], weights[e]);
+			}
+		}
+		for (int k = 0; k < n; k++) {
+			final int through = k;
+			ParallelRanges.run(pool, n, rowGrain(n), new ParallelRanges.Range() {
+
+				@Override
+				public void run(int lo, int hi) {
+					int rowK = through * n;
+					for (int i = lo; i < hi; i++) {
+						int row = i * n;
+						int ik = dist[row + through];
+						if (ik == UNREACHED) {
+							continue;
+						}
+						for (int j = 0; j < n; j++) {
+							int kj = dist[rowK + j];
+							if (kj != UNREACHED && ik + kj < dist[row + j]) {
+								dist[row + j] = ik + kj;
+							}
+						}
+					}
+				}
+			});
+		}
+		return new DistanceMatrix<V>(region, dist);
+	}
+
+	/**
+	 * One Dijkstra search from every vertex of the region, each filling its own
+	 * row, with the rows computed in parallel.
+	 */
+	DistanceMatrix<V> repeatedDijkstra(ForkJoinPool pool) {
+		final int n = region.size();
+		final int[] dist = new int[n * n];
+		Arrays.fill(dist, UNREACHED);
+		int grain = Math.max(1, n / (8 * pool.getParallelism()));
+		ParallelRanges.run(pool, n, grain, new ParallelRanges.Range() {
+
+			@Override
+			public void run(int lo, int hi) {
+				IndexedMinHeap heap = new IndexedMinHeap(n);
+				boolean[] finished = new boolean[n];
+				for (int s = lo; s < hi; s++) {
+					int row = s * n;
+					Arrays.fill(finished, false);
+					dist[row + s] = 0;
+					heap.insert(s, 0);
+					while (!heap.isEmpty()) {
+						int v = heap.poll();
+						finished[v] = true;
+						for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+							int w = targets[e];
+							int d = dist[row + v] + weights[e];
+							if (!finished[w] && d < dist[row + w]) {
+								dist[row + w] = d;
+								heap.insertOrDecrease(w, d);
+							}
+						}
+					}
+				}
+			}
+		});
+		return new DistanceMatrix<V>(region, dist);
+	}
+
+	/* Floyd-Warshall rows per task, so that each task does about 64K updates */
+	private static int rowGrain(int n) {
+		return Math.max(1, 65536 / Math.max(1, n));
+	}
+}
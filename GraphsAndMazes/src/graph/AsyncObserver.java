@@ -0,0 +1,500 @@
+package graph;
+
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <P>
+ * A GraphAlgorithmObserver that decouples a slow observer (such as a GUI that
+ * sleeps between frames) from the algorithm. Register the AsyncObserver with
+ * the graph in place of the slow one: every notification is written into a
+ * slot of a preallocated ring buffer and returns immediately, and a separate
+ * consumer thread replays the events to the wrapped observer in batches, in
+ * their original order.
+ * </P>
+ *
+ * <P>
+ * A notification allocates nothing. Notifying threads take a lock only among
+ * themselves; the consumer never waits for it, and is only woken when the
+ * buffer goes from empty to non-empty.
+ * </P>
+ *
+ * <P>
+ * When the buffer is full, the BackPressure policy decides what happens to
+ * notifyVisit and notifyDijkstraVertexFinished events:
+ * </P>
+ * <P>
+ * BLOCK: the algorithm waits until the consumer makes room.
+ * </P>
+ * <P>
+ * DROP: the event is discarded.
+ * </P>
+ * <P>
+ * COALESCE: the event is added to a single overflow batch of events of the
+ * same kind, which takes one slot once the consumer makes room, so nothing is
+ * lost and the algorithm does not wait. The batch holds at most capacity
+ * events; once it is full, or when an event of another kind arrives, the
+ * algorithm waits as under BLOCK until the batch has been placed in the
+ * buffer.
+ * </P>
+ * <P>
+ * The begin and end notifications are never dropped or merged; when the
+ * buffer is full they always block.
+ * </P>
+ *
+ * <P>
+ * Call close when the observer is no longer needed, to let the consumer
+ * thread finish delivering and exit.
+ * </P>
+ *
+ * @param <V>
+ */
+public class AsyncObserver<V> implements GraphAlgorithmObserver<V>, AutoCloseable {
+
+	/**
+	 * What to do with a visit or vertex-finished event when the buffer is full.
+	 */
+	public enum BackPressure {
+		BLOCK, DROP, COALESCE
+	}
+
+	private static final int DFS_BEGUN = 0, BFS_BEGUN = 1, VISIT = 2, SEARCH_OVER = 3, DIJKSTRA_BEGUN = 4,
+			VERTEX_FINISHED = 5, DIJKSTRA_OVER = 6, VISIT_BATCH = 7, VERTEX_FINISHED_BATCH = 8;
+
+	/*
+	 * Up to capacity visit or vertex-finished events merged under COALESCE.
+	 */
+	private static class Batch {
+		final Object[] vertices;
+		final Integer[] costs;
+		int size;
+
+		Batch(int capacity) {
+			vertices = new Object[capacity];
+			costs = new Integer[capacity];
+		}
+
+		boolean isFull() {
+			return size == vertices.length;
+		}
+
+		void add(Object vertex, Integer cost) {
+			vertices[size] = vertex;
+			costs[size] = cost;
+			size++;
+		}
+	}
+
+	private final GraphAlgorithmObserver<V> delegate;
+	private final BackPressure policy;
+
+	/*
+	 * One slot per event: its kind, its vertex (or path, or Batch) and its
+	 * cost. Events head to tail - 1 are buffered, in slot (sequence number %
+	 * capacity). Only notifying threads advance tail and only the consumer
+	 * advances head, after delivering; the volatile writes of head and tail
+	 * publish the slots between them.
+	 */
+	private final int capacity;
+	private final int[] kinds;
+	private final Object[] items;
+	private final Integer[] costs;
+	private volatile long head, tail;
+
+	/*
+	 * Held by notifying threads while they fill a slot, and while they wait for
+	 * room, so the consumer only ever tries it.
+	 */
+	private final ReentrantLock producerLock = new ReentrantLock();
+
+	/* COALESCE events waiting for a free slot; guarded by producerLock */
+	private Batch overflow;
+	private int overflowKind;
+	private volatile boolean overflowPending;
+
+	/* A notifying thread waiting for the consumer to make room */
+	private volatile Thread blockedProducer;
+
+	/* Threads in flush, woken by the consumer after each batch */
+	private final Object flushLock = new Object();
+	private volatile int flushWaiters;
+
+	private volatile boolean closed, stopped;
+	private volatile long delivered, dropped;
+	private final Thread consumer;
+
+	/**
+	 * Wrap an observer and start the consumer thread.
+	 *
+	 * @param delegate
+	 *            observer that receives the events on the consumer thread
+	 * @param capacity
+	 *            number of events the ring buffer holds
+	 * @param policy
+	 *            what to do with visit events when the buffer is full
+	 * @throws IllegalArgumentException
+	 *             if capacity is less than 1
+	 */
+	public AsyncObserver(GraphAlgorithmObserver<V> delegate, int capacity, BackPressure policy) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException();
+		}
+		this.delegate = delegate;
+		this.policy = policy;
+		this.capacity = capacity;
+		kinds = new int[capacity];
+		items = new Object[capacity];
+		costs = new Integer[capacity];
+		consumer = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				consume();
+			}
+		}, "AsyncObserver");
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	@Override
+	public void notifyDFSHasBegun() {
+		put(DFS_BEGUN, null);
+	}
+
+	@Override
+	public void notifyBFSHasBegun() {
+		put(BFS_BEGUN, null);
+	}
+
+	@Override
+	public void notifyVisit(V vertexBeingVisited) {
+		offer(VISIT, vertexBeingVisited, null);
+	}
+
+	@Override
+	public void notifyLevelVisited(List<V> level) {
+		for (V vertex : level) {
+			offer(VISIT, vertex, null);
+		}
+	}
+
+	@Override
+	public void notifySearchIsOver() {
+		put(SEARCH_OVER, null);
+	}
+
+	@Override
+	public void notifyDijkstraHasBegun() {
+		put(DIJKSTRA_BEGUN, null);
+	}
+
+	@Override
+	public void notifyDijkstraVertexFinished(V vertexAddedToFinishedSet, Integer costOfPath) {
+		offer(VERTEX_FINISHED, vertexAddedToFinishedSet, costOfPath);
+	}
+
+	@Override
+	public void notifyDijkstraIsOver(List<V> path) {
+		put(DIJKSTRA_OVER, path);
+	}
+
+	/**
+	 * Wait until every event notified so far has been delivered to the wrapped
+	 * observer.
+	 *
+	 * @throws InterruptedException
+	 */
+	public void flush() throws InterruptedException {
+		long target;
+		producerLock.lock();
+		try {
+			if (overflow != null) {
+				awaitSpace();
+				if (!isFull()) {
+					publishOverflow();
+				}
+			}
+			target = tail;
+		} finally {
+			unlockProducer();
+		}
+		synchronized (flushLock) {
+			flushWaiters++;
+			try {
+				while (head < target && !stopped) {
+					flushLock.wait();
+				}
+			} finally {
+				flushWaiters--;
+			}
+		}
+	}
+
+	/**
+	 * @return number of events dropped under the DROP policy
+	 */
+	public long getDroppedCount() {
+		return dropped;
+	}
+
+	/**
+	 * @return number of events delivered to the wrapped observer so far
+	 */
+	public long getDeliveredCount() {
+		return delivered;
+	}
+
+	/**
+	 * Stop accepting events. Events already buffered are still delivered, after
+	 * which the consumer thread exits.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		LockSupport.unpark(consumer);
+		Thread producer = blockedProducer;
+		if (producer != null) {
+			LockSupport.unpark(producer);
+		}
+	}
+
+	/**
+	 * Append a visit or vertex-finished event. A full buffer drops it under
+	 * DROP, adds it to the overflow batch under COALESCE unless the batch is
+	 * full, and waits for room under BLOCK.
+	 */
+	private void offer(int kind, V vertex, Integer cost) {
+		producerLock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			if (overflow != null && !publishOverflow()) {
+				if (overflowKind == kind && !overflow.isFull()) {
+					overflow.add(vertex, cost);
+					return;
+				}
+				awaitSpace();
+				if (closed) {
+					return;
+				}
+				publishOverflow();
+			}
+			if (isFull()) {
+				if (policy == BackPressure.DROP) {
+					dropped++;
+					return;
+				}
+				if (policy == BackPressure.COALESCE) {
+					overflow = new Batch(capacity);
+					overflowKind = kind;
+					overflowPending = true;
+					overflow.add(vertex, cost);
+					return;
+				}
+				awaitSpace();
+				if (closed) {
+					return;
+				}
+			}
+			publish(kind, vertex, cost);
+		} finally {
+			unlockProducer();
+		}
+	}
+
+	/**
+	 * Append an event that must not be lost, waiting while the buffer is full.
+	 */
+	private void put(int kind, Object item) {
+		producerLock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			if (overflow != null) {
+				awaitSpace();
+				if (closed) {
+					return;
+				}
+				publishOverflow();
+			}
+			awaitSpace();
+			if (closed) {
+				return;
+			}
+			publish(kind, item, null);
+		} finally {
+			unlockProducer();
+		}
+	}
+
+	/**
+	 * Release producerLock. If a batch is still waiting and the buffer is empty,
+	 * the consumer may have parked after failing to take the lock to publish
+	 * the batch itself, so wake it.
+	 */
+	private void unlockProducer() {
+		producerLock.unlock();
+		if (overflowPending && head == tail) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	private boolean isFull() {
+		return tail - head == capacity;
+	}
+
+	/**
+	 * Park until the buffer has room or the observer is closed. Called with
+	 * producerLock held, so at most one thread waits here at a time.
+	 */
+	private void awaitSpace() {
+		boolean interrupted = false;
+		blockedProducer = Thread.currentThread();
+		while (isFull() && !closed) {
+			LockSupport.park(this);
+			interrupted |= Thread.interrupted();
+		}
+		blockedProducer = null;
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Fill the slot at tail, waking the consumer if the buffer was empty.
+	 * Called with producerLock held and the buffer not full.
+	 */
+	private void publish(int kind, Object item, Integer cost) {
+		long t = tail;
+		int slot = (int) (t % capacity);
+		kinds[slot] = kind;
+		items[slot] = item;
+		costs[slot] = cost;
+		tail = t + 1;
+		if (head == t) {
+			LockSupport.unpark(consumer);
+		}
+	}
+
+	/**
+	 * Move the overflow batch into the buffer if there is room. Called with
+	 * producerLock held.
+	 *
+	 * @return false if the buffer is still full
+	 */
+	private boolean publishOverflow() {
+		if (isFull()) {
+			return false;
+		}
+		publish(overflowKind == VISIT ? VISIT_BATCH : VERTEX_FINISHED_BATCH, overflow, null);
+		overflow = null;
+		overflowPending = false;
+		return true;
+	}
+
+	/**
+	 * Consumer loop: deliver every buffered event, free their slots at once,
+	 * park while the buffer is empty, and exit once closed and drained.
+	 */
+	private void consume() {
+		try {
+			while (true) {
+				long h = head;
+				long t = tail;
+				if (h == t) {
+					/*
+					 * A notifying thread may have left a batch behind, and there
+					 * is room for it now. If a notifying thread holds the lock,
+					 * park: it either publishes the batch, which unparks this
+					 * thread, or unparks it on unlocking.
+					 */
+					if (overflowPending && producerLock.tryLock()) {
+						try {
+							if (overflow != null) {
+								publishOverflow();
+							}
+						} finally {
+							producerLock.unlock();
+						}
+						continue;
+					}
+					if (closed && !overflowPending) {
+						return;
+					}
+					LockSupport.park(this);
+					if (Thread.interrupted()) {
+						return;
+					}
+					continue;
+				}
+				long events = 0;
+				for (long k = h; k < t; k++) {
+					int slot = (int) (k % capacity);
+					events += deliver(kinds[slot], items[slot], costs[slot]);
+					items[slot] = null;
+					costs[slot] = null;
+				}
+				delivered += events;
+				head = t;
+				Thread producer = blockedProducer;
+				if (producer != null) {
+					LockSupport.unpark(producer);
+				}
+				wakeFlushers();
+			}
+		} finally {
+			stopped = true;
+			wakeFlushers();
+		}
+	}
+
+	private void wakeFlushers() {
+		if (flushWaiters > 0) {
+			synchronized (flushLock) {
+				flushLock.notifyAll();
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private int deliver(int kind, Object item, Integer cost) {
+		switch (kind) {
+		case DFS_BEGUN:
+			delegate.notifyDFSHasBegun();
+			return 1;
+		case BFS_BEGUN:
+			delegate.notifyBFSHasBegun();
+			return 1;
+		case VISIT:
+			delegate.notifyVisit((V) item);
+			return 1;
+		case SEARCH_OVER:
+			delegate.notifySearchIsOver();
+			return 1;
+		case DIJKSTRA_BEGUN:
+			delegate.notifyDijkstraHasBegun();
+			return 1;
+		case VERTEX_FINISHED:
+			delegate.notifyDijkstraVertexFinished((V) item, cost);
+			return 1;
+		case VISIT_BATCH:
+			Batch visits = (Batch) item;
+			for (int i = 0; i < visits.size; i++) {
+				delegate.notifyVisit((V) visits.vertices[i]);
+			}
+			return visits.size;
+		case VERTEX_FINISHED_BATCH:
+			Batch finished = (Batch) item;
+			for (int i = 0; i < finished.size; i++) {
+				delegate.notifyDijkstraVertexFinished((V) finished.vertices[i], finished.costs[i]);
+			}
+			return finished.size;
+		default:
+			delegate.notifyDijkstraIsOver((List<V>) item);
+			return 1;
+		}
+	}
+}
@@ -0,0 +1,668 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * <P>
+ * An immutable, compressed sparse row (CSR) copy of a WeightedGraph.
+ * </P>
+ *
+ * <P>
+ * Every vertex is given an index from 0 to getVertexCount() - 1. The edges
+ * leaving the vertex with index i are stored in targets[offsets[i]] through
+ * targets[offsets[i + 1] - 1], with the matching weights at the same positions
+ * in weights. The three arrays are plain ints, so a traversal walks primitive
+ * arrays instead of chasing HashMap buckets and boxed Integers.
+ * </P>
+ *
+ * <P>
+ * A CompactGraph is built with WeightedGraph.toCompactGraph() and does not
+ * change afterwards; later changes to the WeightedGraph are not reflected. It
+ * can run the same three algorithms as WeightedGraph (DFS, BFS and Dijkstra's)
+ * and notifies its own collection of GraphAlgorithmObservers in the same way.
+ * </P>
+ */
+public class CompactGraph<V> {
+
+	/*
+	 * Index to vertex and vertex to index. Only the first vertexCount entries
+	 * belong to this graph: a WeightedGraph's cached copy shares its lists,
+	 * which may grow after the copy was made.
+	 */
+	private final List<V> vertices;
+	private final Map<V, Integer> indexOf;
+	private final int vertexCount;
+
+	/* package-private so WeightedGraph can walk its cached copy directly */
+	final int[] offsets;
+	final int[] targets;
+	final int[] weights;
+
+	/*
+	 * Incoming edges in the same layout (inSources[inOffsets[i]] to
+	 * inSources[inOffsets[i + 1] - 1] lead into vertex i). Only built the first
+	 * time a bottom-up BFS step needs them.
+	 */
+	private int[] inOffsets;
+	private int[] inSources;
+
+	/*
+	 * Tuning for the parallel BFS: the number of vertices one task handles
+	 * sequentially, and the Beamer et al. thresholds for switching between
+	 * top-down and bottom-up steps.
+	 */
+	private static final int GRAIN = 2048;
+	private static final int ALPHA = 14;
+	private static final int BETA = 24;
+
+	/*
+	 * Collection of observers.
+	 */
+	private Collection<GraphAlgorithmObserver<V>> observerList;
+
+	/*
+	 * Visited marks, queue or stack, distances and heap of the sequential BFS,
+	 * DFS and Dijkstra, kept per thread so repeated searches neither allocate
+	 * nor clear them.
+	 */
+	private final ThreadLocal<DijkstraWorkspace> workspaces = new ThreadLocal<DijkstraWorkspace>();
+
+	/**
+	 * Copy the adjacency maps of a WeightedGraph into CSR arrays.
+	 *
+	 * @param adjacency
+	 *            the vertex to (neighbor to weight) map of the source graph
+	 * @param order
+	 *            every vertex of the source graph, in the order they should be
+	 *            indexed
+	 */
+	CompactGraph(Map<V, Map<V, Integer>> adjacency, List<V> order) {
+		this(adjacency, new ArrayList<V>(order), indexMap(order));
+	}
+
+	/**
+	 * Copy the adjacency maps into CSR arrays over an existing indexing, which
+	 * is shared rather than copied.
+	 *
+	 * @param adjacency
+	 *            the vertex to (neighbor to weight) map of the source graph
+	 * @param vertices
+	 *            every vertex of the source graph, by index
+	 * @param indexOf
+	 *            the index of every vertex in vertices
+	 */
+	CompactGraph(Map<V, Map<V, Integer>> adjacency, List<V> vertices, Map<V, Integer> indexOf) {
+		int n = vertices.size();
+		this.vertices = vertices;
+		this.indexOf = indexOf;
+		vertexCount = n;
+		int edgeCount = 0;
+		for (int i = 0; i < n; i++) {
+			edgeCount += adjacency.get(vertices.get(i)).size();
+		}
+		offsets = new int[n + 1];
+		targets = new int[edgeCount];
+		weights = new int[edgeCount];
+		int e = 0;
+		for (int i = 0; i < n; i++) {
+			offsets[i] = e;
+			for (Map.Entry<V, Integer> edge : adjacency.get(vertices.get(i)).entrySet()) {
+				targets[e] = indexOf.get(edge.getKey());
+				weights[e] = edge.getValue();
+				e++;
+			}
+		}
+		offsets[n] = e;
+		observerList = new HashSet<GraphAlgorithmObserver<V>>();
+	}
+
+	private static <V> Map<V, Integer> indexMap(List<V> order) {
+		Map<V, Integer> indexOf = new HashMap<V, Integer>(order.size() * 2);
+		for (V vertex : order) {
+			indexOf.put(vertex, indexOf.size());
+		}
+		return indexOf;
+	}
+
+	/**
+	 * Add a GraphAlgorithmObserver to the collection maintained by this graph
+	 * (observerList).
+	 *
+	 * @param observer
+	 */
+	public void addObserver(GraphAlgorithmObserver<V> observer) {
+		observerList.add(observer);
+	}
+
+	/**
+	 * @return number of vertices in this graph
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * @return number of directed edges in this graph
+	 */
+	public int getEdgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * Searches for a given vertex.
+	 *
+	 * @param vertex
+	 *            the vertex we are looking for
+	 * @return true if the vertex is in the graph, false otherwise.
+	 */
+	public boolean containsVertex(V vertex) {
+		Integer index = indexOf.get(vertex);
+		return index != null && index < vertexCount;
+	}
+
+	/**
+	 * Returns the index of a vertex.
+	 *
+	 * @param vertex
+	 * @return index of the vertex, from 0 to getVertexCount() - 1
+	 * @throws IllegalArgumentException
+	 *             if the vertex is not in the graph
+	 */
+	public int indexOf(V vertex) {
+		Integer index = indexOf.get(vertex);
+		if (index == null || index >= vertexCount) {
+			throw new IllegalArgumentException();
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the vertex with the given index.
+	 *
+	 * @param index
+	 * @return the vertex
+	 * @throws IllegalArgumentException
+	 *             if there is no vertex with that index
+	 */
+	public V vertexAt(int index) {
+		if (index < 0 || index >= vertexCount) {
+			throw new IllegalArgumentException();
+		}
+		return vertices.get(index);
+	}
+
+	/**
+	 * Returns weight of the edge connecting one vertex to another, or null if the
+	 * edge does not exist.
+	 *
+	 * @param from
+	 *            vertex where edge begins
+	 * @param to
+	 *            vertex where edge terminates
+	 * @return weight of the edge, or null if there is no edge connecting these
+	 *         vertices
+	 * @throws IllegalArgumentException
+	 *             if either of the vertices specified are not in the graph.
+	 */
+	public Integer getWeight(V from, V to) {
+		int f = indexOf(from);
+		int t = indexOf(to);
+		for (int e = offsets[f]; e < offsets[f + 1]; e++) {
+			if (targets[e] == t) {
+				return weights[e];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * <P>
+	 * Performs a Breadth-First-Search, with the same observer notifications as
+	 * WeightedGraph.DoBFS.
+	 * </P>
+	 *
+	 * @param start
+	 *            vertex where search begins
+	 * @param end
+	 *            the algorithm terminates just after this vertex is visited
+	 */
+	public void DoBFS(V start, V end) {
+		breadthFirst(start, end, observerList);
+	}
+
+	/**
+	 * Breadth-First-Search that notifies the given observers.
+	 */
+	void breadthFirst(V start, V end, Collection<GraphAlgorithmObserver<V>> observers) {
+		int s = indexOf(start);
+		int t = indexOf(end);
+		for (GraphAlgorithmObserver<V> o : observers) {
+			o.notifyBFSHasBegun();
+		}
+		DijkstraWorkspace ws = DijkstraWorkspace.acquire(workspaces, vertexCount);
+		try {
+			int[] queue = ws.scratch(vertexCount);
+			int head = 0, tail = 0;
+			queue[tail++] = s;
+			ws.visit(s);
+			while (head < tail) {
+				int cur = queue[head++];
+				for (GraphAlgorithmObserver<V> o : observers) {
+					o.notifyVisit(vertices.get(cur));
+				}
+				if (cur == t) {
+					for (GraphAlgorithmObserver<V> o : observers) {
+						o.notifySearchIsOver();
+					}
+					return;
+				}
+				for (int e = offsets[cur]; e < offsets[cur + 1]; e++) {
+					int next = targets[e];
+					if (ws.visit(next)) {
+						queue[tail++] = next;
+					}
+				}
+			}
+		} finally {
+			ws.inUse = false;
+		}
+	}
+
+	/**
+	 * <P>
+	 * Performs a Depth-First-Search, with the same observer notifications as
+	 * WeightedGraph.DoDFS.
+	 * </P>
+	 *
+	 * @param start
+	 *            vertex where search begins
+	 * @param end
+	 *            the algorithm terminates just after this vertex is visited
+	 */
+	public void DoDFS(V start, V end) {
+		depthFirst(start, end, observerList);
+	}
+
+	/**
+	 * <P>
+	 * Depth-First-Search that notifies the given observers. The stack holds one
+	 * (vertex, next edge) frame per vertex on the current path rather than one
+	 * entry per edge seen, so it never grows beyond 2 * getVertexCount() ints,
+	 * and every vertex is visited exactly once.
+	 * </P>
+	 *
+	 * <P>
+	 * Edges are taken from the last to the first, which visits vertices in the
+	 * same order as pushing every unvisited neighbor onto a stack and visiting
+	 * them as they are popped.
+	 * </P>
+	 */
+	void depthFirst(V start, V end, Collection<GraphAlgorithmObserver<V>> observers) {
+		int s = indexOf(start);
+		int t = indexOf(end);
+		for (GraphAlgorithmObserver<V> o : observers) {
+			o.notifyDFSHasBegun();
+		}
+		DijkstraWorkspace ws = DijkstraWorkspace.acquire(workspaces, vertexCount);
+		try {
+			int[] frames = ws.scratch(2 * vertexCount);
+			int top = 0;
+			int cur = s;
+			while (true) {
+				ws.visit(cur);
+				for (GraphAlgorithmObserver<V> o : observers) {
+					o.notifyVisit(vertices.get(cur));
+				}
+				if (cur == t) {
+					for (GraphAlgorithmObserver<V> o : observers) {
+						o.notifySearchIsOver();
+					}
+					return;
+				}
+				frames[top++] = cur;
+				frames[top++] = offsets[cur + 1];
+				/* unwind until some frame has an unvisited neighbor left */
+				cur = -1;
+				while (top > 0 && cur == -1) {
+					int e = --frames[top - 1];
+					if (e < offsets[frames[top - 2]]) {
+						top -= 2;
+					} else if (!ws.isFinished(targets[e])) {
+						cur = targets[e];
+					}
+				}
+				if (cur == -1) {
+					return;
+				}
+			}
+		} finally {
+			ws.inUse = false;
+		}
+	}
+
+	/**
+	 * <P>
+	 * Performs Dijkstra's algorithm, with the same observer notifications as
+	 * WeightedGraph.DoDijsktra. Every vertex reachable from start is added to
+	 * the finished set before the path to end is reported.
+	 * </P>
+	 *
+	 * @param start
+	 *            vertex where algorithm will start
+	 * @param end
+	 *            special vertex used as the end of the path reported to observers
+	 *            via the notifyDijkstraIsOver method.
+	 */
+	public void DoDijsktra(V start, V end) {
+		int s = indexOf(start);
+		int t = indexOf(end);
+		for (GraphAlgorithmObserver<V> o : observerList) {
+			o.notifyDijkstraHasBegun();
+		}
+		DijkstraWorkspace ws = DijkstraWorkspace.acquire(workspaces, vertexCount);
+		List<V> path = new ArrayList<V>();
+		try {
+			ws.reach(s, 0, -1);
+			ws.heap.insert(s, 0);
+			while (!ws.heap.isEmpty()) {
+				int cur = ws.heap.poll();
+				ws.finish(cur);
+				for (GraphAlgorithmObserver<V> o : observerList) {
+					o.notifyDijkstraVertexFinished(vertices.get(cur), ws.distance[cur]);
+				}
+				for (int e = offsets[cur]; e < offsets[cur + 1]; e++) {
+					int next = targets[e];
+					int d = ws.distance[cur] + weights[e];
+					if (!ws.isReached(next) || (!ws.isFinished(next) && d < ws.distance[next])) {
+						ws.reach(next, d, cur);
+						ws.heap.insertOrDecrease(next, d);
+					}
+				}
+			}
+			if (ws.isFinished(t)) {
+				for (int v = t; v != -1; v = ws.predecessor[v]) {
+					path.add(vertices.get(v));
+				}
+				Collections.reverse(path);
+			}
+		} finally {
+			ws.inUse = false;
+		}
+		for (GraphAlgorithmObserver<V> o : observerList) {
+			o.notifyDijkstraIsOver(path);
+		}
+	}
+
+	/**
+	 * <P>
+	 * Performs a parallel, level-synchronous Breadth-First-Search on the common
+	 * ForkJoinPool. Each level is expanded by several tasks at once, marking
+	 * vertices in an atomic visited bitmap. A level is expanded top-down (from
+	 * the frontier along outgoing edges) while the frontier is small, and
+	 * bottom-up (every unvisited vertex looks for a parent in the frontier) while
+	 * it is large.
+	 * </P>
+	 *
+	 * <P>
+	 * Observers are notified with notifyBFSHasBegun, then with one
+	 * notifyLevelVisited call per level, all on the calling thread. Once the
+	 * level containing "end" has been reported, notifySearchIsOver is called and
+	 * the search stops.
+	 * </P>
+	 *
+	 * @param start
+	 *            vertex where search begins
+	 * @param end
+	 *            the algorithm terminates just after the level holding this
+	 *            vertex is visited
+	 */
+	public void DoParallelBFS(V start, V end) {
+		parallelBreadthFirst(start, end, observerList);
+	}
+
+	/**
+	 * Parallel Breadth-First-Search that notifies the given observers.
+	 */
+	void parallelBreadthFirst(V start, V end, Collection<GraphAlgorithmObserver<V>> observers) {
+		int s = indexOf(start);
+		int t = indexOf(end);
+		for (GraphAlgorithmObserver<V> o : observers) {
+			o.notifyBFSHasBegun();
+		}
+		if (parallelBFS(s, t, null, observers)) {
+			for (GraphAlgorithmObserver<V> o : observers) {
+				o.notifySearchIsOver();
+			}
+		}
+	}
+
+	/**
+	 * Runs a parallel BFS over everything reachable from start, without
+	 * notifying observers.
+	 *
+	 * @param start
+	 *            vertex where search begins
+	 * @return the BFS depth of every vertex, by index, or -1 for vertices that
+	 *         cannot be reached
+	 */
+	public int[] getBFSLevels(V start) {
+		int[] level = new int[vertexCount];
+		Arrays.fill(level, -1);
+		parallelBFS(indexOf(start), -1, level, observerList);
+		return level;
+	}
+
+	/**
+	 * Level-synchronous BFS from s. Records depths in level if it is not null,
+	 * reports levels to observers when level is null, and returns true as soon
+	 * as the level containing t (if t >= 0) has been produced.
+	 */
+	private boolean parallelBFS(int s, int t, int[] level, Collection<GraphAlgorithmObserver<V>> observers) {
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		int n = vertexCount;
+		AtomicIntegerArray visited = new AtomicIntegerArray((n + 31) >>> 5);
+		trySet(visited, s);
+		int[] frontier = { s };
+		long unexploredEdges = targets.length - degree(s);
+		boolean bottomUp = false;
+		for (int depth = 0; frontier.length > 0; depth++) {
+			if (level != null) {
+				for (int v : frontier) {
+					level[v] = depth;
+				}
+			} else if (!observers.isEmpty()) {
+				List<V> batch = new ArrayList<V>(frontier.length);
+				for (int v : frontier) {
+					batch.add(vertices.get(v));
+				}
+				for (GraphAlgorithmObserver<V> o : observers) {
+					o.notifyLevelVisited(batch);
+				}
+			}
+			if (t >= 0 && isSet(visited, t)) {
+				return true;
+			}
+
+			long frontierEdges = 0;
+			for (int v : frontier) {
+				frontierEdges += degree(v);
+			}
+			if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+				bottomUp = true;
+			} else if (bottomUp && frontier.length < n / BETA) {
+				bottomUp = false;
+			}
+			if (bottomUp) {
+				buildIncomingEdges();
+				boolean[] inFrontier = new boolean[n];
+				for (int v : frontier) {
+					inFrontier[v] = true;
+				}
+				frontier = pool.invoke(new BottomUpStep(inFrontier, visited, 0, n));
+			} else {
+				frontier = pool.invoke(new TopDownStep(frontier, visited, 0, frontier.length));
+			}
+			for (int v : frontier) {
+				unexploredEdges -= degree(v);
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * Expands frontier[lo..hi) along outgoing edges, returning the vertices
+	 * this task was first to mark visited.
+	 */
+	private class TopDownStep extends RecursiveTask<int[]> {
+
+		private static final long serialVersionUID = 1L;
+		private final int[] frontier;
+		private final AtomicIntegerArray visited;
+		private final int lo, hi;
+
+		TopDownStep(int[] frontier, AtomicIntegerArray visited, int lo, int hi) {
+			this.frontier = frontier;
+			this.visited = visited;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				TopDownStep left = new TopDownStep(frontier, visited, lo, mid);
+				left.fork();
+				int[] right = new TopDownStep(frontier, visited, mid, hi).compute();
+				return concat(left.join(), right);
+			}
+			int[] found = new int[16];
+			int count = 0;
+			for (int i = lo; i < hi; i++) {
+				int v = frontier[i];
+				for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+					if (trySet(visited, targets[e])) {
+						if (count == found.length) {
+							found = Arrays.copyOf(found, count * 2);
+						}
+						found[count++] = targets[e];
+					}
+				}
+			}
+			return Arrays.copyOf(found, count);
+		}
+	}
+
+	/*
+	 * Checks every unvisited vertex in [lo..hi) for an incoming edge from the
+	 * frontier, returning the vertices that have one.
+	 */
+	private class BottomUpStep extends RecursiveTask<int[]> {
+
+		private static final long serialVersionUID = 1L;
+		private final boolean[] inFrontier;
+		private final AtomicIntegerArray visited;
+		private final int lo, hi;
+
+		BottomUpStep(boolean[] inFrontier, AtomicIntegerArray visited, int lo, int hi) {
+			this.inFrontier = inFrontier;
+			this.visited = visited;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected int[] compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				BottomUpStep left = new BottomUpStep(inFrontier, visited, lo, mid);
+				left.fork();
+				int[] right = new BottomUpStep(inFrontier, visited, mid, hi).compute();
+				return concat(left.join(), right);
+			}
+			int[] found = new int[16];
+			int count = 0;
+			for (int v = lo; v < hi; v++) {
+				if (isSet(visited, v)) {
+					continue;
+				}
+				for (int e = inOffsets[v]; e < inOffsets[v + 1]; e++) {
+					if (inFrontier[inSources[e]]) {
+						trySet(visited, v);
+						if (count == found.length) {
+							found = Arrays.copyOf(found, count * 2);
+						}
+						found[count++] = v;
+						break;
+					}
+				}
+			}
+			return Arrays.copyOf(found, count);
+		}
+	}
+
+	private int degree(int v) {
+		return offsets[v + 1] - offsets[v];
+	}
+
+	private synchronized void buildIncomingEdges() {
+		if (inOffsets != null) {
+			return;
+		}
+		int n = vertexCount;
+		int[] counts = new int[n + 1];
+		for (int e = 0; e < targets.length; e++) {
+			counts[targets[e] + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			counts[i + 1] += counts[i];
+		}
+		int[] sources = new int[targets.length];
+		int[] next = Arrays.copyOf(counts, n);
+		for (int v = 0; v < n; v++) {
+			for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+				sources[next[targets[e]]++] = v;
+			}
+		}
+		inSources = sources;
+		inOffsets = counts;
+	}
+
+	private static int[] concat(int[] a, int[] b) {
+		int[] result = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, result, a.length, b.length);
+		return result;
+	}
+
+	private static boolean isSet(AtomicIntegerArray bits, int v) {
+		return (bits.get(v >>> 5) & (1 << (v & 31))) != 0;
+	}
+
+	/*
+	 * Atomically sets the bit for v; returns true only for the caller that
+	 * changed it from 0 to 1.
+	 */
+	private static boolean trySet(AtomicIntegerArray bits, int v) {
+		int word = v >>> 5;
+		int mask = 1 << (v & 31);
+		while (true) {
+			int old = bits.get(word);
+			if ((old & mask) != 0) {
+				return false;
+			}
+			if (bits.compareAndSet(word, old, old | mask)) {
+				return true;
+			}
+		}
+	}
+}
@@ -0,0 +1,638 @@
+package graph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * <P>
+ * A contraction hierarchy built from a WeightedGraph, for answering many
+ * point-to-point shortest-path queries on a graph that does not change.
+ * </P>
+ *
+ * <P>
+ * Preprocessing contracts the vertices one at a time, cheapest first (by edge
+ * difference plus the number of neighbors already contracted). Contracting a
+ * vertex v removes it from the remaining graph, adding a shortcut u -> x of
+ * weight w(u, v) + w(v, x) whenever no path from u to x avoiding v is as
+ * short. The position of a vertex in this order is its rank.
+ * </P>
+ *
+ * <P>
+ * A query runs a forward Dijkstra from "start" over edges that lead to higher
+ * ranked vertices, and a backward Dijkstra from "end" over incoming edges that
+ * come from higher ranked vertices. The two meet at the highest ranked vertex
+ * of a shortest path, and shortcuts are unpacked back into original edges.
+ * Both searches only see a small part of the graph, so queries are far faster
+ * than a full Dijkstra.
+ * </P>
+ *
+ * <P>
+ * A ContractionHierarchy is immutable, so it can be built once, saved, and
+ * loaded later. Queries do not notify observers and may run concurrently.
+ * </P>
+ *
+ * <P>
+ * The saved format is a header of big-endian ints (magic, format version,
+ * vertex count, upward edge count, downward edge count, shortcut count), then
+ * the ranks, the upward offsets, targets and weights, the downward offsets,
+ * sources and weights, every shortcut as from, to and middle vertex, and
+ * finally the vertices as written by a VertexCodec. Loading checks every
+ * index, so a damaged file is reported instead of producing a hierarchy whose
+ * queries fail or never end.
+ * </P>
+ */
+public class ContractionHierarchy<V> {
+
+	private static final int MAGIC = 0x57474348; // "WGCH"
+	private static final int FORMAT_VERSION = 1;
+
+	/* Arrays read from a stream grow in steps of this many ints as data arrives. */
+	private static final int READ_CHUNK = 1 << 16;
+
+	/*
+	 * Witness searches give up after settling this many vertices, in which case
+	 * the shortcut is added anyway. That can only add unneeded shortcuts, never
+	 * lose a shortest path.
+	 */
+	private static final int WITNESS_SETTLE_LIMIT = 500;
+
+	private final ArrayList<V> vertices;
+	private final HashMap<V, Integer> indexOf;
+	private final int[] rank;
+
+	/* Edges from each vertex to higher ranked vertices (forward search). */
+	private final int[] upOffsets, upTargets, upWeights;
+
+	/* Edges into each vertex from higher ranked vertices (backward search). */
+	private final int[] downOffsets, downSources, downWeights;
+
+	/* Middle vertex of every shortcut a -> b, keyed by edgeKey(a, b). */
+	private final HashMap<Long, Integer> middles;
+
+	/* Two search workspaces per thread, created on first use. */
+	private final ThreadLocal<DijkstraWorkspace[]> workspaces = new ThreadLocal<DijkstraWorkspace[]>() {
+
+		@Override
+		protected DijkstraWorkspace[] initialValue() {
+			return new DijkstraWorkspace[] { new DijkstraWorkspace(), new DijkstraWorkspace() };
+		}
+	};
+
+	/*
+	 * An edge of the graph being contracted. The same object is stored in the
+	 * out map of its source and the in map of its target.
+	 */
+	private static class Edge {
+		int weight;
+		int middle;
+
+		Edge(int weight, int middle) {
+			this.weight = weight;
+			this.middle = middle;
+		}
+	}
+
+	/**
+	 * Contract the graph given by its adjacency maps.
+	 *
+	 * @param adjacency
+	 *            the vertex to (neighbor to weight) map of the source graph
+	 */
+	ContractionHierarchy(Map<V, Map<V, Integer>> adjacency) {
+		int n = adjacency.size();
+		vertices = new ArrayList<V>(adjacency.keySet());
+		indexOf = new HashMap<V, Integer>(n * 2);
+		for (int i = 0; i < n; i++) {
+			indexOf.put(vertices.get(i), i);
+		}
+		List<Map<Integer, Edge>> out = new ArrayList<Map<Integer, Edge>>(n);
+		List<Map<Integer, Edge>> in = new ArrayList<Map<Integer, Edge>>(n);
+		for (int i = 0; i < n; i++) {
+			out.add(new HashMap<Integer, Edge>());
+			in.add(new HashMap<Integer, Edge>());
+		}
+		for (int u = 0; u < n; u++) {
+			for (Map.Entry<V, Integer> e : adjacency.get(vertices.get(u)).entrySet()) {
+				int x = indexOf.get(e.getKey());
+				if (x != u) {
+					Edge edge = new Edge(e.getValue(), -1);
+					out.get(u).put(x, edge);
+					in.get(x).put(u, edge);
+				}
+			}
+		}
+
+		rank = new int[n];
+		middles = new HashMap<Long, Integer>();
+		int[][] upT = new int[n][], upW = new int[n][];
+		int[][] downS = new int[n][], downW = new int[n][];
+		int[] deletedNeighbors = new int[n];
+		IndexedMinHeap queue = new IndexedMinHeap(n);
+		for (int v = 0; v < n; v++) {
+			queue.insert(v, priority(v, out, in, deletedNeighbors));
+		}
+		int order = 0;
+		while (!queue.isEmpty()) {
+			int v = queue.poll();
+			/* lazy update: re-evaluate, and put back if no longer the cheapest */
+			int p = priority(v, out, in, deletedNeighbors);
+			if (!queue.isEmpty() && p > queue.priorityOf(queue.peek())) {
+				queue.insert(v, p);
+				continue;
+			}
+			contract(v, out, in, false);
+			rank[v] = order++;
+
+			Map<Integer, Edge> vOut = out.get(v);
+			upT[v] = new int[vOut.size()];
+			upW[v] = new int[vOut.size()];
+			int i = 0;
+			for (Map.Entry<Integer, Edge> e : vOut.entrySet()) {
+				int x = e.getKey();
+				upT[v][i] = x;
+				upW[v][i++] = e.getValue().weight;
+				if (e.getValue().middle >= 0) {
+					middles.put(edgeKey(v, x), e.getValue().middle);
+				}
+				in.get(x).remove(v);
+				deletedNeighbors[x]++;
+			}
+			Map<Integer, Edge> vIn = in.get(v);
+			downS[v] = new int[vIn.size()];
+			downW[v] = new int[vIn.size()];
+			i = 0;
+			for (Map.Entry<Integer, Edge> e : vIn.entrySet()) {
+				int u = e.getKey();
+				downS[v][i] = u;
+				downW[v][i++] = e.getValue().weight;
+				if (e.getValue().middle >= 0) {
+					middles.put(edgeKey(u, v), e.getValue().middle);
+				}
+				out.get(u).remove(v);
+				deletedNeighbors[u]++;
+			}
+			out.set(v, null);
+			in.set(v, null);
+		}
+
+		upOffsets = new int[n + 1];
+		downOffsets = new int[n + 1];
+		for (int v = 0; v < n; v++) {
+			upOffsets[v + 1] = upOffsets[v] + upT[v].length;
+			downOffsets[v + 1] = downOffsets[v] + downS[v].length;
+		}
+		upTargets = new int[upOffsets[n]];
+		upWeights = new int[upOffsets[n]];
+		downSources = new int[downOffsets[n]];
+		downWeights = new int[downOffsets[n]];
+		for (int v = 0; v < n; v++) {
+			System.arraycopy(upT[v], 0, upTargets, upOffsets[v], upT[v].length);
+			System.arraycopy(upW[v], 0, upWeights, upOffsets[v], upW[v].length);
+			System.arraycopy(downS[v], 0, downSources, downOffsets[v], downS[v].length);
+			System.arraycopy(downW[v], 0, downWeights, downOffsets[v], downW[v].length);
+		}
+	}
+
+	/*
+	 * A hierarchy read by load.
+	 */
+	private ContractionHierarchy(ArrayList<V> vertices, HashMap<V, Integer> indexOf, int[] rank, int[] upOffsets,
+			int[] upTargets, int[] upWeights, int[] downOffsets, int[] downSources, int[] downWeights,
+			HashMap<Long, Integer> middles) {
+		this.vertices = vertices;
+		this.indexOf = indexOf;
+		this.rank = rank;
+		this.upOffsets = upOffsets;
+		this.upTargets = upTargets;
+		this.upWeights = upWeights;
+		this.downOffsets = downOffsets;
+		this.downSources = downSources;
+		this.downWeights = downWeights;
+		this.middles = middles;
+	}
+
+	/**
+	 * @return number of vertices in the hierarchy
+	 */
+	public int getVertexCount() {
+		return vertices.size();
+	}
+
+	/**
+	 * @return number of shortcut edges added by preprocessing
+	 */
+	public int getShortcutCount() {
+		return middles.size();
+	}
+
+	/**
+	 * Returns the rank of a vertex in the contraction order; 0 was contracted
+	 * first.
+	 *
+	 * @param vertex
+	 * @return rank of the vertex
+	 * @throws IllegalArgumentException
+	 *             if the vertex is not in the hierarchy
+	 */
+	public int getRank(V vertex) {
+		return rank[index(vertex)];
+	}
+
+	/**
+	 * Returns the cost of the cheapest path from start to end.
+	 *
+	 * @param start
+	 * @param end
+	 * @return total weight of the shortest path, or null if end cannot be
+	 *         reached from start
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the hierarchy
+	 */
+	public Integer getDistance(V start, V end) {
+		DijkstraWorkspace[] ws = workspaces.get();
+		int meet = query(index(start), index(end), ws[0], ws[1]);
+		if (meet < 0) {
+			return null;
+		}
+		return ws[0].distance[meet] + ws[1].distance[meet];
+	}
+
+	/**
+	 * Returns the cheapest path from start to end, as a list of vertices in the
+	 * original graph beginning with start and ending with end.
+	 *
+	 * @param start
+	 * @param end
+	 * @return the shortest path, or an empty list if end cannot be reached from
+	 *         start
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the hierarchy
+	 */
+	public List<V> shortestPath(V start, V end) {
+		DijkstraWorkspace[] ws = workspaces.get();
+		int meet = query(index(start), index(end), ws[0], ws[1]);
+		List<V> path = new ArrayList<V>();
+		if (meet < 0) {
+			return path;
+		}
+		List<Integer> hierarchyPath = new ArrayList<Integer>();
+		for (int v = meet; v != -1; v = ws[0].predecessor[v]) {
+			hierarchyPath.add(v);
+		}
+		Collections.reverse(hierarchyPath);
+		for (int v = ws[1].predecessor[meet]; v != -1; v = ws[1].predecessor[v]) {
+			hierarchyPath.add(v);
+		}
+		path.add(vertices.get(hierarchyPath.get(0)));
+		for (int i = 1; i < hierarchyPath.size(); i++) {
+			unpack(hierarchyPath.get(i - 1), hierarchyPath.get(i), path);
+		}
+		return path;
+	}
+
+	/**
+	 * Write this hierarchy to a stream. The stream is flushed but not closed.
+	 *
+	 * @param out
+	 * @param codec
+	 *            writes the vertices
+	 * @throws IOException
+	 */
+	public void save(OutputStream out, VertexCodec<V> codec) throws IOException {
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+		int n = vertices.size();
+		data.writeInt(MAGIC);
+		data.writeInt(FORMAT_VERSION);
+		data.writeInt(n);
+		data.writeInt(upTargets.length);
+		data.writeInt(downSources.length);
+		data.writeInt(middles.size());
+		writeInts(data, rank);
+		writeInts(data, upOffsets);
+		writeInts(data, upTargets);
+		writeInts(data, upWeights);
+		writeInts(data, downOffsets);
+		writeInts(data, downSources);
+		writeInts(data, downWeights);
+		for (Map.Entry<Long, Integer> shortcut : middles.entrySet()) {
+			long key = shortcut.getKey();
+			data.writeInt((int) (key >>> 32));
+			data.writeInt((int) key);
+			data.writeInt(shortcut.getValue());
+		}
+		for (V vertex : vertices) {
+			codec.write(vertex, data);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Read a hierarchy written by save. The stream is read through a buffer,
+	 * so bytes after the hierarchy may be consumed too.
+	 *
+	 * @param in
+	 * @param codec
+	 *            reads the vertices, as written by the codec given to save
+	 * @return the hierarchy
+	 * @throws IOException
+	 *             if the stream does not hold a valid hierarchy
+	 */
+	public static <V> ContractionHierarchy<V> load(InputStream in, VertexCodec<V> codec) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+		if (data.readInt() != MAGIC) {
+			throw new IOException("not a contraction hierarchy");
+		}
+		int version = data.readInt();
+		if (version != FORMAT_VERSION) {
+			throw new IOException("unsupported contraction hierarchy version " + version);
+		}
+		int n = data.readInt();
+		int upCount = data.readInt();
+		int downCount = data.readInt();
+		int shortcutCount = data.readInt();
+		if (n < 0 || n == Integer.MAX_VALUE || upCount < 0 || downCount < 0 || shortcutCount < 0) {
+			throw new IOException("corrupt contraction hierarchy: " + n + " vertices, " + upCount + " + "
+					+ downCount + " edges, " + shortcutCount + " shortcuts");
+		}
+		int[] rank = readInts(data, n);
+		int[] upOffsets = readInts(data, n + 1);
+		int[] upTargets = readInts(data, upCount);
+		int[] upWeights = readInts(data, upCount);
+		int[] downOffsets = readInts(data, n + 1);
+		int[] downSources = readInts(data, downCount);
+		int[] downWeights = readInts(data, downCount);
+
+		boolean[] ranked = new boolean[n];
+		for (int v = 0; v < n; v++) {
+			if (rank[v] < 0 || rank[v] >= n || ranked[rank[v]]) {
+				throw new IOException("corrupt contraction hierarchy: rank " + rank[v] + " of vertex " + v);
+			}
+			ranked[rank[v]] = true;
+		}
+		checkEdges(upOffsets, upTargets, upWeights, rank, true);
+		checkEdges(downOffsets, downSources, downWeights, rank, false);
+
+		HashMap<Long, Integer> middles = new HashMap<Long, Integer>();
+		for (int i = 0; i < shortcutCount; i++) {
+			int from = data.readInt();
+			int to = data.readInt();
+			int middle = data.readInt();
+			/* the middle was contracted first, so unpacking always ends */
+			if (from < 0 || from >= n || to < 0 || to >= n || middle < 0 || middle >= n
+					|| rank[middle] >= Math.min(rank[from], rank[to])) {
+				throw new IOException("corrupt contraction hierarchy: shortcut " + from + " -> " + to + " via "
+						+ middle);
+			}
+			middles.put(edgeKey(from, to), middle);
+		}
+
+		ArrayList<V> vertices = new ArrayList<V>(Math.min(n, READ_CHUNK));
+		HashMap<V, Integer> indexOf = new HashMap<V, Integer>();
+		for (int v = 0; v < n; v++) {
+			V vertex = codec.read(data);
+			if (indexOf.put(vertex, v) != null) {
+				throw new IOException("corrupt contraction hierarchy: vertex " + vertex + " appears twice");
+			}
+			vertices.add(vertex);
+		}
+		return new ContractionHierarchy<V>(vertices, indexOf, rank, upOffsets, upTargets, upWeights, downOffsets,
+				downSources, downWeights, middles);
+	}
+
+	/**
+	 * Bidirectional upward search. Returns the vertex where the best forward and
+	 * backward paths meet, or -1 if there is no path.
+	 */
+	private int query(int s, int t, DijkstraWorkspace forward, DijkstraWorkspace backward) {
+		int n = vertices.size();
+		forward.reset(n);
+		backward.reset(n);
+		forward.reach(s, 0, -1);
+		forward.heap.insert(s, 0);
+		backward.reach(t, 0, -1);
+		backward.heap.insert(t, 0);
+		long best = Long.MAX_VALUE;
+		int meet = -1;
+		while (true) {
+			boolean forwardOpen = !forward.heap.isEmpty() && forward.heap.priorityOf(forward.heap.peek()) < best;
+			boolean backwardOpen = !backward.heap.isEmpty() && backward.heap.priorityOf(backward.heap.peek()) < best;
+			if (!forwardOpen && !backwardOpen) {
+				break;
+			}
+			boolean goForward = forwardOpen && (!backwardOpen
+					|| forward.heap.priorityOf(forward.heap.peek()) <= backward.heap.priorityOf(backward.heap.peek()));
+			DijkstraWorkspace side = goForward ? forward : backward;
+			DijkstraWorkspace other = goForward ? backward : forward;
+			int[] offsets = goForward ? upOffsets : downOffsets;
+			int[] ends = goForward ? upTargets : downSources;
+			int[] weights = goForward ? upWeights : downWeights;
+
+			int u = side.heap.poll();
+			side.finish(u);
+			if (other.isReached(u) && (long) side.distance[u] + other.distance[u] < best) {
+				best = (long) side.distance[u] + other.distance[u];
+				meet = u;
+			}
+			for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+				int x = ends[e];
+				int d = side.distance[u] + weights[e];
+				if (!side.isReached(x)) {
+					side.reach(x, d, u);
+					side.heap.insert(x, d);
+				} else if (!side.isFinished(x) && d < side.distance[x]) {
+					side.distance[x] = d;
+					side.predecessor[x] = u;
+					side.heap.decreaseKey(x, d);
+				}
+			}
+		}
+		return meet;
+	}
+
+	/**
+	 * Append the original vertices of edge a -> b (excluding a) to path,
+	 * expanding shortcuts.
+	 */
+	private void unpack(int a, int b, List<V> path) {
+		Deque<int[]> stack = new ArrayDeque<int[]>();
+		stack.push(new int[] { a, b });
+		while (!stack.isEmpty()) {
+			int[] edge = stack.pop();
+			Integer middle = middles.get(edgeKey(edge[0], edge[1]));
+			if (middle == null) {
+				path.add(vertices.get(edge[1]));
+			} else {
+				stack.push(new int[] { middle, edge[1] });
+				stack.push(new int[] { edge[0], middle });
+			}
+		}
+	}
+
+	/**
+	 * Number of shortcuts contracting v would add (or adds, if simulate is
+	 * false).
+	 */
+	private static int contract(int v, List<Map<Integer, Edge>> out, List<Map<Integer, Edge>> in, boolean simulate) {
+		Map<Integer, Edge> vOut = out.get(v);
+		int count = 0;
+		for (Map.Entry<Integer, Edge> incoming : in.get(v).entrySet()) {
+			int u = incoming.getKey();
+			int wIn = incoming.getValue().weight;
+			int maxOut = -1;
+			for (Map.Entry<Integer, Edge> outgoing : vOut.entrySet()) {
+				if (outgoing.getKey() != u) {
+					maxOut = Math.max(maxOut, outgoing.getValue().weight);
+				}
+			}
+			if (maxOut < 0) {
+				continue;
+			}
+			Map<Integer, Integer> witness = witnessSearch(u, v, wIn + maxOut, out);
+			for (Map.Entry<Integer, Edge> outgoing : vOut.entrySet()) {
+				int x = outgoing.getKey();
+				if (x == u) {
+					continue;
+				}
+				int via = wIn + outgoing.getValue().weight;
+				Integer d = witness.get(x);
+				if (d == null || d > via) {
+					count++;
+					if (!simulate) {
+						Edge existing = out.get(u).get(x);
+						if (existing == null) {
+							Edge shortcut = new Edge(via, v);
+							out.get(u).put(x, shortcut);
+							in.get(x).put(u, shortcut);
+						} else if (via < existing.weight) {
+							existing.weight = via;
+							existing.middle = v;
+						}
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	private static int priority(int v, List<Map<Integer, Edge>> out, List<Map<Integer, Edge>> in, int[] deletedNeighbors) {
+		int shortcuts = contract(v, out, in, true);
+		return shortcuts - out.get(v).size() - in.get(v).size() + deletedNeighbors[v];
+	}
+
+	/**
+	 * Bounded Dijkstra from source that never enters skip. Returns the best
+	 * known cost of reaching each vertex within limit; every value is the cost of
+	 * a real path, so any value at most the cost through skip is a witness.
+	 */
+	private static Map<Integer, Integer> witnessSearch(int source, int skip, int limit, List<Map<Integer, Edge>> out) {
+		Map<Integer, Integer> dist = new HashMap<Integer, Integer>();
+		PriorityQueue<long[]> frontier = new PriorityQueue<long[]>(16, new Comparator<long[]>() {
+
+			@Override
+			public int compare(long[] a, long[] b) {
+				return Long.compare(a[0], b[0]);
+			}
+		});
+		dist.put(source, 0);
+		frontier.add(new long[] { 0, source });
+		int settled = 0;
+		while (!frontier.isEmpty() && settled < WITNESS_SETTLE_LIMIT) {
+			long[] top = frontier.poll();
+			int u = (int) top[1];
+			if (top[0] > dist.get(u)) {
+				continue;
+			}
+			if (top[0] > limit) {
+				break;
+			}
+			settled++;
+			for (Map.Entry<Integer, Edge> e : out.get(u).entrySet()) {
+				int x = e.getKey();
+				if (x == skip) {
+					continue;
+				}
+				int d = (int) top[0] + e.getValue().weight;
+				Integer old = dist.get(x);
+				if (d <= limit && (old == null || d < old)) {
+					dist.put(x, d);
+					frontier.add(new long[] { d, x });
+				}
+			}
+		}
+		return dist;
+	}
+
+	private int index(V vertex) {
+		Integer i = indexOf.get(vertex);
+		if (i == null) {
+			throw new IllegalArgumentException();
+		}
+		return i;
+	}
+
+	private static long edgeKey(int from, int to) {
+		return ((long) from << 32) | (to & 0xffffffffL);
+	}
+
+	private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	/*
+	 * Read count ints, growing the array as they arrive, so that a corrupt
+	 * count in a short stream fails with EOFException rather than allocating
+	 * a huge array.
+	 */
+	private static int[] readInts(DataInputStream in, int count) throws IOException {
+		int[] values = new int[Math.min(count, READ_CHUNK)];
+		for (int i = 0; i < count; i++) {
+			if (i == values.length) {
+				values = Arrays.copyOf(values, (int) Math.min(count, 2L * values.length));
+			}
+			values[i] = in.readInt();
+		}
+		return values;
+	}
+
+	/*
+	 * Check that offsets split targets into one range per vertex, and that each
+	 * edge is non-negative and joins a vertex to a higher ranked one: upward
+	 * edges lead to one, downward edges come from one.
+	 */
+	private static void checkEdges(int[] offsets, int[] ends, int[] weights, int[] rank, boolean up)
+			throws IOException {
+		int n = rank.length;
+		if (offsets[0] != 0 || offsets[n] != ends.length) {
+			throw new IOException("corrupt contraction hierarchy: edge offsets do not cover the edges");
+		}
+		for (int v = 0; v < n; v++) {
+			if (offsets[v + 1] < offsets[v]) {
+				throw new IOException("corrupt contraction hierarchy: edge offsets decrease at vertex " + v);
+			}
+			for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+				int x = ends[i];
+				if (x < 0 || x >= n || rank[x] <= rank[v] || weights[i] < 0) {
+					throw new IOException("corrupt contraction hierarchy: " + (up ? "upward" : "downward")
+							+ " edge " + i + " of vertex " + v);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * <P>
+ * The working arrays of one search over vertex indices: distances,
+ * predecessors, which vertices have been reached or finished, and the frontier
+ * heap of Dijkstra or A*. BFS and DFS use the same workspace, with the finished
+ * marks as their visited set and the scratch array as their queue or stack.
+ * </P>
+ *
+ * <P>
+ * A workspace is meant to be reused. Starting a new search bumps a generation
+ * counter instead of clearing the arrays, so a vertex counts as reached or
+ * finished only if it was marked during the current generation. The arrays
+ * grow when the graph does. A workspace must only be used by one search at a
+ * time; the graphs keep one per thread and hand out a fresh one if a search
+ * starts while another is still running on the same thread (for example from
+ * an observer callback).
+ * </P>
+ */
+class DijkstraWorkspace {
+
+	int[] distance = new int[0];
+	int[] predecessor = new int[0];
+	private int[] reached = new int[0];
+	private int[] finished = new int[0];
+	private int generation;
+	final IndexedMinHeap heap = new IndexedMinHeap(16);
+
+	/* queue or stack of the traversals, grown on demand by scratch(int) */
+	private int[] scratch = new int[16];
+	boolean inUse;
+
+	/**
+	 * Returns a workspace ready for a search over vertices 0 to vertexCount - 1:
+	 * the one perThread holds, or a fresh one if that is already in use. The
+	 * caller must clear inUse when done.
+	 */
+	static DijkstraWorkspace acquire(ThreadLocal<DijkstraWorkspace> perThread, int vertexCount) {
+		DijkstraWorkspace ws = perThread.get();
+		if (ws == null || ws.inUse) {
+			ws = new DijkstraWorkspace();
+			if (perThread.get() == null) {
+				perThread.set(ws);
+			}
+		}
+		ws.inUse = true;
+		ws.reset(vertexCount);
+		return ws;
+	}
+
+	/**
+	 * Prepare for a new search over vertices 0 to vertexCount - 1.
+	 */
+	void reset(int vertexCount) {
+		if (distance.length < vertexCount) {
+			int capacity = Math.max(vertexCount, distance.length * 2);
+			distance = new int[capacity];
+			predecessor = new int[capacity];
+			reached = new int[capacity];
+			finished = new int[capacity];
+			generation = 0;
+		}
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(reached, 0);
+			Arrays.fill(finished, 0);
+			generation = 0;
+		}
+		generation++;
+		heap.clear();
+	}
+
+	boolean isReached(int v) {
+		return reached[v] == generation;
+	}
+
+	boolean isFinished(int v) {
+		return finished[v] == generation;
+	}
+
+	/**
+	 * Record a first tentative distance for v.
+	 */
+	void reach(int v, int dist, int pred) {
+		reached[v] = generation;
+		distance[v] = dist;
+		predecessor[v] = pred;
+	}
+
+	void finish(int v) {
+		finished[v] = generation;
+	}
+
+	/**
+	 * Mark v finished, for the traversals that only need a visited set.
+	 *
+	 * @return false if v was already finished in this search
+	 */
+	boolean visit(int v) {
+		if (finished[v] == generation) {
+			return false;
+		}
+		finished[v] = generation;
+		return true;
+	}
+
+	/**
+	 * Returns the scratch array, grown to at least length ints if it is
+	 * shorter, keeping its contents.
+	 */
+	int[] scratch(int length) {
+		if (scratch.length < length) {
+			scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+		}
+		return scratch;
+	}
+}
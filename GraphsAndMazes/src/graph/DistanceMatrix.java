@@ -0,0 +1,68 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <P>
+ * The lowest path cost between every ordered pair of vertices in a region of
+ * a WeightedGraph, as returned by floydWarshall and allPairsDijkstra. Only
+ * paths that stay inside the region are considered.
+ * </P>
+ *
+ * @param <V>
+ */
+public class DistanceMatrix<V> {
+
+	private static final int UNREACHED = Integer.MAX_VALUE;
+
+	private final List<V> vertices;
+	private final Map<V, Integer> indexOf;
+	private final int[] distance;
+
+	/**
+	 * @param vertices
+	 *            the region, in row order
+	 * @param distance
+	 *            row-major vertices.size() x vertices.size() costs,
+	 *            Integer.MAX_VALUE where there is no path
+	 */
+	DistanceMatrix(List<V> vertices, int[] distance) {
+		this.vertices = Collections.unmodifiableList(new ArrayList<V>(vertices));
+		this.distance = distance;
+		indexOf = new HashMap<V, Integer>(vertices.size() * 2);
+		for (int i = 0; i < vertices.size(); i++) {
+			indexOf.put(vertices.get(i), i);
+		}
+	}
+
+	/**
+	 * @return the vertices of the region
+	 */
+	public List<V> getVertices() {
+		return vertices;
+	}
+
+	/**
+	 * Returns the cost of the lowest cost path from start to end inside the
+	 * region.
+	 *
+	 * @param start
+	 * @param end
+	 * @return total weight of the path, or null if there is none
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the region
+	 */
+	public Integer getDistance(V start, V end) {
+		Integer i = indexOf.get(start);
+		Integer j = indexOf.get(end);
+		if (i == null || j == null) {
+			throw new IllegalArgumentException();
+		}
+		int d = distance[i * vertices.size() + j];
+		return d == UNREACHED ? null : d;
+	}
+}
@@ -0,0 +1,310 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <P>
+ * The shortest paths from one fixed source vertex of a WeightedGraph to every
+ * other vertex, kept up to date as edges change.
+ * </P>
+ *
+ * <P>
+ * Edges must be changed through setEdge and removeEdge, which apply the change
+ * to the graph and then repair the tree in the style of Ramalingam and Reps.
+ * When an edge is added or gets cheaper, only the vertices whose distance
+ * improves are visited. When a tree edge u -> v is removed or gets more
+ * expensive, only the subtree below v is recomputed, starting from its best
+ * remaining incoming edges. Changes that cannot affect the tree cost O(1).
+ * </P>
+ *
+ * <P>
+ * The tree remembers the graph's version after each repair. If the graph has
+ * been changed directly (not through this tree) by the time the tree is next
+ * used, the tree is rebuilt with a full Dijkstra first, so it never reports
+ * stale distances. A DynamicShortestPathTree is not safe for use by several
+ * threads at once.
+ * </P>
+ */
+public class DynamicShortestPathTree<V> {
+
+	private static final int UNREACHED = Integer.MAX_VALUE;
+
+	private final WeightedGraph<V> graph;
+	private final V source;
+
+	/* Indexed by the graph's vertex index. */
+	private int[] distance;
+	private int[] parent;
+
+	/*
+	 * The first inCount[v] entries of inSources[v] and inWeights[v] are the
+	 * edges into v; their order does not matter.
+	 */
+	private int[][] inSources, inWeights;
+	private int[] inCount;
+
+	private final IndexedMinHeap heap = new IndexedMinHeap(16);
+
+	/* graph.getVersion() when the tree was last brought up to date */
+	private long version;
+
+	/**
+	 * Build the tree with a full Dijkstra from source.
+	 *
+	 * @param graph
+	 * @param source
+	 */
+	DynamicShortestPathTree(WeightedGraph<V> graph, V source) {
+		this.graph = graph;
+		this.source = source;
+		rebuild();
+	}
+
+	/**
+	 * @return the vertex this tree is rooted at
+	 */
+	public V getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the cost of the cheapest path from the source to a vertex.
+	 *
+	 * @param vertex
+	 * @return total weight of the shortest path, or null if the vertex cannot be
+	 *         reached
+	 * @throws IllegalArgumentException
+	 *             if the vertex is not in the graph
+	 */
+	public Integer getDistance(V vertex) {
+		int v = index(vertex);
+		checkVersion();
+		if (v >= distance.length || distance[v] == UNREACHED) {
+			return null;
+		}
+		return distance[v];
+	}
+
+	/**
+	 * Returns the cheapest path from the source to a vertex.
+	 *
+	 * @param vertex
+	 * @return the path, beginning with the source and ending with vertex, or an
+	 *         empty list if the vertex cannot be reached
+	 * @throws IllegalArgumentException
+	 *             if the vertex is not in the graph
+	 */
+	public List<V> getPath(V vertex) {
+		List<V> path = new ArrayList<V>();
+		if (getDistance(vertex) == null) {
+			return path;
+		}
+		for (int v = index(vertex); v != -1; v = parent[v]) {
+			path.add(graph.vertexAt(v));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Add an edge to the graph, or change the weight of an existing one, and
+	 * repair the tree.
+	 *
+	 * @param from
+	 *            the vertex the edge leads from
+	 * @param to
+	 *            the vertex the edge leads to
+	 * @param weight
+	 *            the (non-negative) weight of this edge
+	 * @throws IllegalArgumentException
+	 *             when either vertex is not in the graph, or the weight is
+	 *             negative.
+	 */
+	public void setEdge(V from, V to, int weight) {
+		checkVersion();
+		Integer old = graph.getWeight(from, to);
+		graph.addEdge(from, to, weight);
+		version = graph.getVersion();
+		int f = graph.indexOf(from);
+		int t = graph.indexOf(to);
+		setIncoming(t, f, weight);
+		if (old == null || weight < old) {
+			if (distance[f] != UNREACHED && distance[f] + weight < distance[t]) {
+				distance[t] = distance[f] + weight;
+				parent[t] = f;
+				heap.insert(t, distance[t]);
+				propagate();
+			}
+		} else if (weight > old && parent[t] == f) {
+			repairSubtree(t);
+		}
+	}
+
+	/**
+	 * Remove an edge from the graph, if there is one, and repair the tree.
+	 *
+	 * @param from
+	 *            the vertex the edge leads from
+	 * @param to
+	 *            the vertex the edge leads to
+	 * @throws IllegalArgumentException
+	 *             if either of the vertices specified are not in the graph.
+	 */
+	public void removeEdge(V from, V to) {
+		checkVersion();
+		if (graph.removeEdge(from, to) == null) {
+			return;
+		}
+		version = graph.getVersion();
+		int f = graph.indexOf(from);
+		int t = graph.indexOf(to);
+		removeIncoming(t, f);
+		if (parent[t] == f) {
+			repairSubtree(t);
+		}
+	}
+
+	/**
+	 * Recompute the distances of root and everything below it in the tree after
+	 * the edge into root got more expensive or disappeared.
+	 */
+	private void repairSubtree(int root) {
+		List<Integer> affected = new ArrayList<Integer>();
+		affected.add(root);
+		for (int i = 0; i < affected.size(); i++) {
+			int x = affected.get(i);
+			for (V child : graph.edgesFrom(graph.vertexAt(x)).keySet()) {
+				int c = graph.indexOf(child);
+				if (parent[c] == x) {
+					affected.add(c);
+				}
+			}
+		}
+		for (int x : affected) {
+			distance[x] = UNREACHED;
+			parent[x] = -1;
+		}
+		/* seed each affected vertex with its best edge from outside the subtree */
+		for (int x : affected) {
+			int[] sources = inSources[x];
+			int[] weights = inWeights[x];
+			for (int i = 0; i < inCount[x]; i++) {
+				int y = sources[i];
+				if (distance[y] != UNREACHED && distance[y] + weights[i] < distance[x]) {
+					distance[x] = distance[y] + weights[i];
+					parent[x] = y;
+				}
+			}
+			if (distance[x] != UNREACHED) {
+				heap.insert(x, distance[x]);
+			}
+		}
+		propagate();
+	}
+
+	/**
+	 * Dijkstra's algorithm from whatever is in the heap, lowering distances
+	 * that can be improved.
+	 */
+	private void propagate() {
+		while (!heap.isEmpty()) {
+			int x = heap.poll();
+			for (Map.Entry<V, Integer> edge : graph.edgesFrom(graph.vertexAt(x)).entrySet()) {
+				int y = graph.indexOf(edge.getKey());
+				int d = distance[x] + edge.getValue();
+				if (d < distance[y]) {
+					distance[y] = d;
+					parent[y] = x;
+					heap.insertOrDecrease(y, d);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rebuild the incoming edges and the whole tree from the graph as it is now.
+	 */
+	private void rebuild() {
+		int n = graph.vertexCount();
+		distance = new int[n];
+		parent = new int[n];
+		Arrays.fill(distance, UNREACHED);
+		Arrays.fill(parent, -1);
+		inSources = new int[n][];
+		inWeights = new int[n][];
+		inCount = new int[n];
+		for (int v = 0; v < n; v++) {
+			for (V to : graph.edgesFrom(graph.vertexAt(v)).keySet()) {
+				inCount[graph.indexOf(to)]++;
+			}
+		}
+		for (int v = 0; v < n; v++) {
+			inSources[v] = new int[Math.max(inCount[v], 2)];
+			inWeights[v] = new int[inSources[v].length];
+			inCount[v] = 0;
+		}
+		for (int v = 0; v < n; v++) {
+			for (Map.Entry<V, Integer> edge : graph.edgesFrom(graph.vertexAt(v)).entrySet()) {
+				int t = graph.indexOf(edge.getKey());
+				inSources[t][inCount[t]] = v;
+				inWeights[t][inCount[t]++] = edge.getValue();
+			}
+		}
+		heap.clear();
+		int s = graph.indexOf(source);
+		distance[s] = 0;
+		heap.insert(s, 0);
+		propagate();
+		version = graph.getVersion();
+	}
+
+	/**
+	 * Rebuild the tree if the graph was changed other than through this tree.
+	 */
+	private void checkVersion() {
+		if (graph.getVersion() != version) {
+			rebuild();
+		}
+	}
+
+	/* Record the edge from -> to with the given weight, replacing any old one */
+	private void setIncoming(int to, int from, int weight) {
+		int[] sources = inSources[to];
+		for (int i = 0; i < inCount[to]; i++) {
+			if (sources[i] == from) {
+				inWeights[to][i] = weight;
+				return;
+			}
+		}
+		if (inCount[to] == sources.length) {
+			inSources[to] = Arrays.copyOf(sources, sources.length * 2);
+			inWeights[to] = Arrays.copyOf(inWeights[to], sources.length * 2);
+		}
+		inSources[to][inCount[to]] = from;
+		inWeights[to][inCount[to]++] = weight;
+	}
+
+	/* Forget the edge from -> to, moving the last edge into its place */
+	private void removeIncoming(int to, int from) {
+		int[] sources = inSources[to];
+		for (int i = 0; i < inCount[to]; i++) {
+			if (sources[i] == from) {
+				int last = --inCount[to];
+				sources[i] = sources[last];
+				inWeights[to][i] = inWeights[to][last];
+				return;
+			}
+		}
+	}
+
+	private int index(V vertex) {
+		if (!graph.containsVertex(vertex)) {
+			throw new IllegalArgumentException();
+		}
+		return graph.indexOf(vertex);
+	}
+}
@@ -32,6 +32,20 @@ public interface GraphAlgorithmObserver<V> {
 	 */
 	public void notifyVisit(V vertexBeingVisited);
 	
+	/** Called by the graph during a parallel, level-synchronous
+	 * BFS with every vertex first reached at the same depth.
+	 * The order of the vertices within a level is unspecified.
+	 * Observers that do not override this method receive one
+	 * notifyVisit call per vertex instead.
+	 * 
+	 * @param level vertices at the current depth
+	 */
+	public default void notifyLevelVisited(List<V> level) {
+		for (V vertex : level) {
+			notifyVisit(vertex);
+		}
+	}
+	
 	/** Called by the graph to notify this observer that
 	 * the search (either DFS or BFS) is over.
 	 */
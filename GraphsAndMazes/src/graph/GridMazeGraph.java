@@ -0,0 +1,393 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import maze.Juncture;
+import maze.Maze;
+
+/**
+ * <P>
+ * A grid-native alternative to MazeGraph. Instead of copying the maze into
+ * HashMaps, the GridMazeGraph addresses each juncture by the index
+ * y * width + x and reads walls and weights straight from the Maze whenever an
+ * algorithm asks for the neighbors of a vertex. Building one costs O(1).
+ * </P>
+ *
+ * <P>
+ * Juncture objects are only created when they are handed to observers or
+ * requested through getJuncture, and are not kept; a Juncture is two ints, and
+ * equal junctures compare equal.
+ * </P>
+ *
+ * <P>
+ * The graph runs DFS, BFS and Dijkstra's algorithm with the same observer
+ * notifications as WeightedGraph. Neighbors are always examined in the order
+ * right, down, left, up.
+ * </P>
+ */
+public class GridMazeGraph {
+
+	/**
+	 * Largest number of junctures a GridMazeGraph can search: depth-first
+	 * search keeps two ints per juncture in a single array.
+	 */
+	public static final int MAX_JUNCTURES = (Integer.MAX_VALUE - 8) / 2;
+
+	/* Bits of the open directions out of a juncture, in neighbor order */
+	private static final int RIGHT = 1, DOWN = 2, LEFT = 4, UP = 8;
+
+	public final Maze theMaze;
+	private final int width, height, vertexCount;
+
+	/*
+	 * Collection of observers.
+	 */
+	private Collection<GraphAlgorithmObserver<Juncture>> observerList;
+
+	/*
+	 * Visited marks, queue or stack, distances and heap of the searches, kept
+	 * per thread so repeated searches on a large maze neither allocate nor
+	 * clear them.
+	 */
+	private final ThreadLocal<DijkstraWorkspace> workspaces = new ThreadLocal<DijkstraWorkspace>();
+
+	/**
+	 * Wrap a maze without copying it.
+	 *
+	 * @param maze
+	 *            source of the walls and weights of this graph
+	 * @throws IllegalArgumentException
+	 *             if the maze has more than MAX_JUNCTURES junctures
+	 */
+	public GridMazeGraph(Maze maze) {
+		long junctures = (long) maze.getMazeWidth() * maze.getMazeHeight();
+		if (junctures > MAX_JUNCTURES) {
+			throw new IllegalArgumentException("a " + maze.getMazeWidth() + " x " + maze.getMazeHeight()
+					+ " maze has more than " + MAX_JUNCTURES + " junctures");
+		}
+		theMaze = maze;
+		width = maze.getMazeWidth();
+		height = maze.getMazeHeight();
+		vertexCount = (int) junctures;
+		observerList = new HashSet<GraphAlgorithmObserver<Juncture>>();
+	}
+
+	/**
+	 * Add a GraphAlgorithmObserver to the collection maintained by this graph
+	 * (observerList).
+	 *
+	 * @param observer
+	 */
+	public void addObserver(GraphAlgorithmObserver<Juncture> observer) {
+		observerList.add(observer);
+	}
+
+	/**
+	 * @return number of junctures in the maze
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * Returns the index of the juncture at (x, y).
+	 *
+	 * @param x
+	 * @param y
+	 * @return y * width + x
+	 * @throws IllegalArgumentException
+	 *             if (x, y) is outside the maze
+	 */
+	public int indexOf(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			throw new IllegalArgumentException();
+		}
+		return y * width + x;
+	}
+
+	/**
+	 * Returns the index of a juncture.
+	 *
+	 * @param juncture
+	 * @return index of the juncture
+	 * @throws IllegalArgumentException
+	 *             if the juncture is outside the maze
+	 */
+	public int indexOf(Juncture juncture) {
+		return indexOf(juncture.getX(), juncture.getY());
+	}
+
+	/**
+	 * Returns the Juncture with the given index, creating it the first time it
+	 * is asked for.
+	 *
+	 * @param index
+	 * @return the juncture
+	 * @throws IllegalArgumentException
+	 *             if there is no juncture with that index
+	 */
+	public Juncture getJuncture(int index) {
+		if (index < 0 || index >= vertexCount) {
+			throw new IllegalArgumentException();
+		}
+		return juncture(index);
+	}
+
+	/**
+	 * Returns the weight of the edge between two junctures, or null if they are
+	 * not adjacent or there is a wall between them.
+	 *
+	 * @param from
+	 * @param to
+	 * @return weight of the edge, or null if there is no edge
+	 * @throws IllegalArgumentException
+	 *             if either juncture is outside the maze
+	 */
+	public Integer getWeight(Juncture from, Juncture to) {
+		int f = indexOf(from);
+		int t = indexOf(to);
+		int[] targets = new int[4];
+		int[] weights = new int[4];
+		int count = neighbors(f, targets, weights);
+		for (int i = 0; i < count; i++) {
+			if (targets[i] == t) {
+				return weights[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Performs a Breadth-First-Search, with the same observer notifications as
+	 * WeightedGraph.DoBFS.
+	 *
+	 * @param start
+	 *            vertex where search begins
+	 * @param end
+	 *            the algorithm terminates just after this vertex is visited
+	 */
+	public void DoBFS(Juncture start, Juncture end) {
+		for (GraphAlgorithmObserver<Juncture> o : observerList) {
+			o.notifyBFSHasBegun();
+		}
+		int s = indexOf(start);
+		int t = indexOf(end);
+		DijkstraWorkspace ws = DijkstraWorkspace.acquire(workspaces, vertexCount);
+		try {
+			int[] queue = ws.scratch(vertexCount);
+			int[] targets = new int[4];
+			int[] weights = new int[4];
+			int head = 0, tail = 0;
+			queue[tail++] = s;
+			ws.visit(s);
+			while (head < tail) {
+				int cur = queue[head++];
+				for (GraphAlgorithmObserver<Juncture> o : observerList) {
+					o.notifyVisit(juncture(cur));
+				}
+				if (cur == t) {
+					for (GraphAlgorithmObserver<Juncture> o : observerList) {
+						o.notifySearchIsOver();
+					}
+					return;
+				}
+				int count = neighbors(cur, targets, weights);
+				for (int i = 0; i < count; i++) {
+					if (ws.visit(targets[i])) {
+						queue[tail++] = targets[i];
+					}
+				}
+			}
+		} finally {
+			ws.inUse = false;
+		}
+	}
+
+	/**
+	 * Performs a Depth-First-Search, with the same observer notifications as
+	 * WeightedGraph.DoDFS.
+	 *
+	 * @param start
+	 *            vertex where search begins
+	 * @param end
+	 *            the algorithm terminates just after this vertex is visited
+	 */
+	public void DoDFS(Juncture start, Juncture end) {
+		for (GraphAlgorithmObserver<Juncture> o : observerList) {
+			o.notifyDFSHasBegun();
+		}
+		int s = indexOf(start);
+		int t = indexOf(end);
+		DijkstraWorkspace ws = DijkstraWorkspace.acquire(workspaces, vertexCount);
+		try {
+			/*
+			 * one (cell, open directions left) frame per cell on the current
+			 * path; the directions are taken last to first, matching the order
+			 * in which a stack of all unvisited neighbors would be popped
+			 */
+			int[] frames = ws.scratch(2 * vertexCount);
+			int top = 0;
+			int cur = s;
+			while (true) {
+				ws.visit(cur);
+				for (GraphAlgorithmObserver<Juncture> o : observerList) {
+					o.notifyVisit(juncture(cur));
+				}
+				if (cur == t) {
+					for (GraphAlgorithmObserver<Juncture> o : observerList) {
+						o.notifySearchIsOver();
+					}
+					return;
+				}
+				frames[top++] = cur;
+				frames[top++] = openings(cur);
+				cur = -1;
+				while (top > 0 && cur == -1) {
+					int open = frames[top - 1];
+					if (open == 0) {
+						top -= 2;
+					} else {
+						int direction = Integer.highestOneBit(open);
+						frames[top - 1] = open ^ direction;
+						int next = step(frames[top - 2], direction);
+						if (!ws.isFinished(next)) {
+							cur = next;
+						}
+					}
+				}
+				if (cur == -1) {
+					return;
+				}
+			}
+		} finally {
+			ws.inUse = false;
+		}
+	}
+
+	/**
+	 * Performs Dijkstra's algorithm, with the same observer notifications as
+	 * WeightedGraph.DoDijsktra.
+	 *
+	 * @param start
+	 *            vertex where algorithm will start
+	 * @param end
+	 *            special vertex used as the end of the path reported to observers
+	 *            via the notifyDijkstraIsOver method.
+	 */
+	public void DoDijsktra(Juncture start, Juncture end) {
+		for (GraphAlgorithmObserver<Juncture> o : observerList) {
+			o.notifyDijkstraHasBegun();
+		}
+		int s = indexOf(start);
+		int t = indexOf(end);
+		DijkstraWorkspace ws = DijkstraWorkspace.acquire(workspaces, vertexCount);
+		List<Juncture> path = new ArrayList<Juncture>();
+		try {
+			int[] targets = new int[4];
+			int[] weights = new int[4];
+			ws.reach(s, 0, -1);
+			ws.heap.insert(s, 0);
+			while (!ws.heap.isEmpty()) {
+				int cur = ws.heap.poll();
+				ws.finish(cur);
+				for (GraphAlgorithmObserver<Juncture> o : observerList) {
+					o.notifyDijkstraVertexFinished(juncture(cur), ws.distance[cur]);
+				}
+				int count = neighbors(cur, targets, weights);
+				for (int i = 0; i < count; i++) {
+					int next = targets[i];
+					int d = ws.distance[cur] + weights[i];
+					if (!ws.isReached(next) || (!ws.isFinished(next) && d < ws.distance[next])) {
+						ws.reach(next, d, cur);
+						ws.heap.insertOrDecrease(next, d);
+					}
+				}
+			}
+			if (ws.isFinished(t)) {
+				for (int v = t; v != -1; v = ws.predecessor[v]) {
+					path.add(juncture(v));
+				}
+				Collections.reverse(path);
+			}
+		} finally {
+			ws.inUse = false;
+		}
+		for (GraphAlgorithmObserver<Juncture> o : observerList) {
+			o.notifyDijkstraIsOver(path);
+		}
+	}
+
+	/**
+	 * Writes the wall-free neighbors of a vertex into the two arrays, in the
+	 * order right, down, left, up.
+	 *
+	 * @return number of neighbors written (0 to 4)
+	 */
+	int neighbors(int v, int[] targets, int[] weights) {
+		int x = v % width;
+		int y = v / width;
+		int count = 0;
+		if (x + 1 < width && !theMaze.isWallToRight(x, y)) {
+			targets[count] = v + 1;
+			weights[count++] = theMaze.getWeightToRight(x, y);
+		}
+		if (y + 1 < height && !theMaze.isWallBelow(x, y)) {
+			targets[count] = v + width;
+			weights[count++] = theMaze.getWeightBelow(x, y);
+		}
+		if (x > 0 && !theMaze.isWallToRight(x - 1, y)) {
+			targets[count] = v - 1;
+			weights[count++] = theMaze.getWeightToRight(x - 1, y);
+		}
+		if (y > 0 && !theMaze.isWallBelow(x, y - 1)) {
+			targets[count] = v - width;
+			weights[count++] = theMaze.getWeightBelow(x, y - 1);
+		}
+		return count;
+	}
+
+	/*
+	 * The directions without a wall out of a vertex, as RIGHT | DOWN | LEFT | UP
+	 * bits.
+	 */
+	private int openings(int v) {
+		int x = v % width;
+		int y = v / width;
+		int open = 0;
+		if (x + 1 < width && !theMaze.isWallToRight(x, y)) {
+			open |= RIGHT;
+		}
+		if (y + 1 < height && !theMaze.isWallBelow(x, y)) {
+			open |= DOWN;
+		}
+		if (x > 0 && !theMaze.isWallToRight(x - 1, y)) {
+			open |= LEFT;
+		}
+		if (y > 0 && !theMaze.isWallBelow(x, y - 1)) {
+			open |= UP;
+		}
+		return open;
+	}
+
+	/* The neighbor of v in one direction */
+	private int step(int v, int direction) {
+		switch (direction) {
+		case RIGHT:
+			return v + 1;
+		case DOWN:
+			return v + width;
+		case LEFT:
+			return v - 1;
+		default:
+			return v - width;
+		}
+	}
+
+	private Juncture juncture(int v) {
+		return new Juncture(v % width, v / width);
+	}
+}
@@ -0,0 +1,27 @@
+package graph;
+
+/**
+ * A Heuristic estimates the cost of the cheapest path from a vertex to a goal
+ * vertex. It is used by WeightedGraph.DoAStar to decide which vertex to finish
+ * next.
+ * 
+ * <P>
+ * The estimate must never be greater than the true cost (admissible), and for
+ * every edge (u, v) with weight w, estimate(u, goal) must be at most w +
+ * estimate(v, goal) (consistent). A heuristic that always returns 0 makes A*
+ * behave exactly like Dijkstra's algorithm.
+ * </P>
+ *
+ * @param <V>
+ */
+public interface Heuristic<V> {
+
+	/**
+	 * Returns a lower bound on the cost of getting from vertex to goal.
+	 * 
+	 * @param vertex
+	 * @param goal
+	 * @return a non-negative estimate
+	 */
+	public int estimate(V vertex, V goal);
+}
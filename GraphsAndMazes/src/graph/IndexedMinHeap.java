@@ -0,0 +1,221 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * <P>
+ * A binary min-heap of int keys ordered by an int priority, used as the
+ * frontier for the shortest-path algorithms in this package.
+ * </P>
+ *
+ * <P>
+ * Keys are small non-negative integers (vertex indices). The heap remembers the
+ * position of every key it holds, so decreaseKey runs in O(log n) instead of the
+ * linear remove-and-reinsert a sorted list needs. Keys with equal priority are
+ * ordered by key, so the order in which keys are removed is deterministic.
+ * </P>
+ */
+class IndexedMinHeap {
+
+	private int[] heap; // heap position -> key
+	private int[] position; // key -> heap position, or -1 if absent
+	private int[] priority; // key -> priority
+	private int size;
+
+	/**
+	 * Create an empty heap able to hold keys in [0, capacity) without growing.
+	 *
+	 * @param capacity
+	 *            initial key capacity
+	 */
+	IndexedMinHeap(int capacity) {
+		capacity = Math.max(capacity, 1);
+		heap = new int[capacity];
+		position = new int[capacity];
+		priority = new int[capacity];
+		Arrays.fill(position, -1);
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean contains(int key) {
+		return key < position.length && position[key] >= 0;
+	}
+
+	/**
+	 * Returns the priority the key currently has in the heap.
+	 *
+	 * @param key
+	 * @return priority of the key
+	 * @throws NoSuchElementException
+	 *             if the key is not in the heap
+	 */
+	int priorityOf(int key) {
+		if (!contains(key)) {
+			throw new NoSuchElementException();
+		}
+		return priority[key];
+	}
+
+	/**
+	 * Returns the key with the smallest priority without removing it.
+	 *
+	 * @throws NoSuchElementException
+	 *             if the heap is empty
+	 */
+	int peek() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return heap[0];
+	}
+
+	/**
+	 * Add a key that is not already in the heap.
+	 *
+	 * @param key
+	 *            non-negative key
+	 * @param prio
+	 *            priority of the key
+	 * @throws IllegalArgumentException
+	 *             if the key is negative or already in the heap
+	 */
+	void insert(int key, int prio) {
+		if (key < 0 || contains(key)) {
+			throw new IllegalArgumentException();
+		}
+		if (key >= position.length) {
+			grow(key + 1);
+		}
+		heap[size] = key;
+		position[key] = size;
+		priority[key] = prio;
+		siftUp(size++);
+	}
+
+	/**
+	 * Lower the priority of a key already in the heap.
+	 *
+	 * @param key
+	 * @param prio
+	 *            new priority, which must not be greater than the current one
+	 * @throws IllegalArgumentException
+	 *             if the key is not in the heap or the priority would increase
+	 */
+	void decreaseKey(int key, int prio) {
+		if (!contains(key) || prio > priority[key]) {
+			throw new IllegalArgumentException();
+		}
+		priority[key] = prio;
+		siftUp(position[key]);
+	}
+
+	/**
+	 * Insert the key, or lower its priority if it is already present and the new
+	 * priority is smaller.
+	 *
+	 * @return true if the heap changed
+	 */
+	boolean insertOrDecrease(int key, int prio) {
+		if (!contains(key)) {
+			insert(key, prio);
+			return true;
+		}
+		if (prio < priority[key]) {
+			decreaseKey(key, prio);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Remove and return the key with the smallest priority.
+	 *
+	 * @throws NoSuchElementException
+	 *             if the heap is empty
+	 */
+	int poll() {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		int top = heap[0];
+		position[top] = -1;
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return top;
+	}
+
+	/**
+	 * Empty the heap, keeping its arrays so it can be reused.
+	 */
+	void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private boolean less(int a, int b) {
+		int pa = priority[a];
+		int pb = priority[b];
+		return pa < pb || (pa == pb && a < b);
+	}
+
+	private void siftUp(int i) {
+		int key = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			int parentKey = heap[parent];
+			if (!less(key, parentKey)) {
+				break;
+			}
+			heap[i] = parentKey;
+			position[parentKey] = i;
+			i = parent;
+		}
+		heap[i] = key;
+		position[key] = i;
+	}
+
+	private void siftDown(int i) {
+		int key = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && less(heap[child + 1], heap[child])) {
+				child++;
+			}
+			int childKey = heap[child];
+			if (!less(childKey, key)) {
+				break;
+			}
+			heap[i] = childKey;
+			position[childKey] = i;
+			i = child;
+		}
+		heap[i] = key;
+		position[key] = i;
+	}
+
+	private void grow(int minCapacity) {
+		int oldLength = position.length;
+		int newLength = Math.max(minCapacity, oldLength * 2);
+		heap = Arrays.copyOf(heap, newLength);
+		priority = Arrays.copyOf(priority, newLength);
+		position = Arrays.copyOf(position, newLength);
+		Arrays.fill(position, oldLength, newLength, -1);
+	}
+}
@@ -0,0 +1,83 @@
+package graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <P>
+ * A read-only file mapped into memory, addressed by long positions so that
+ * files larger than 2 GB can be used.
+ * </P>
+ *
+ * <P>
+ * A single MappedByteBuffer cannot exceed 2 GB, so the file is mapped as 1 GB
+ * chunks. Each chunk also maps the first VertexCodec.MAX_LENGTH bytes of the
+ * next one, so any read of up to that many bytes that starts inside a chunk
+ * can be served by that chunk alone.
+ * </P>
+ */
+class MappedFile {
+
+	private static final int CHUNK_BITS = 30;
+	private static final long CHUNK = 1L << CHUNK_BITS;
+
+	private final MappedByteBuffer[] chunks;
+	private final long size;
+
+	MappedFile(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			size = channel.size();
+			chunks = new MappedByteBuffer[(int) ((size + CHUNK - 1) / CHUNK)];
+			for (int i = 0; i < chunks.length; i++) {
+				long start = i * CHUNK;
+				long length = Math.min(CHUNK + VertexCodec.MAX_LENGTH, size - start);
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+			}
+		} finally {
+			/* the mappings stay valid after the channel is closed */
+			channel.close();
+		}
+	}
+
+	long size() {
+		return size;
+	}
+
+	int getInt(long position) {
+		return chunks[(int) (position >>> CHUNK_BITS)].getInt((int) (position & (CHUNK - 1)));
+	}
+
+	long getLong(long position) {
+		return chunks[(int) (position >>> CHUNK_BITS)].getLong((int) (position & (CHUNK - 1)));
+	}
+
+	/**
+	 * Tells whether the bytes.length bytes, at most VertexCodec.MAX_LENGTH,
+	 * starting at position are equal to bytes, without copying them.
+	 */
+	boolean matches(long position, byte[] bytes) {
+		ByteBuffer chunk = chunks[(int) (position >>> CHUNK_BITS)];
+		int at = (int) (position & (CHUNK - 1));
+		for (int i = 0; i < bytes.length; i++) {
+			if (chunk.get(at + i) != bytes[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Copy dst.length bytes, at most VertexCodec.MAX_LENGTH, starting at
+	 * position.
+	 */
+	void get(long position, byte[] dst) {
+		ByteBuffer chunk = chunks[(int) (position >>> CHUNK_BITS)].duplicate();
+		chunk.position((int) (position & (CHUNK - 1)));
+		chunk.get(dst);
+	}
+}
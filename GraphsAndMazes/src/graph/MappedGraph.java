@@ -0,0 +1,425 @@
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <P>
+ * A read-only graph backed by a memory-mapped file written by
+ * WeightedGraph.save. Opening one reads only the file header; vertices and
+ * edges are read from the mapping as queries touch them, so even a
+ * multi-gigabyte graph opens in milliseconds and only the pages a query needs
+ * are loaded by the operating system.
+ * </P>
+ *
+ * <P>
+ * The file holds, in order (all numbers big-endian):
+ * </P>
+ * <P>
+ * a header: magic number, format version, vertex count, hash table capacity
+ * (ints) and edge count (long), padded to HEADER_SIZE bytes;
+ * </P>
+ * <P>
+ * the CSR edge arrays: vertexCount + 1 long offsets, then edgeCount int
+ * targets and edgeCount int weights, as in CompactGraph;
+ * </P>
+ * <P>
+ * the vertex table: an open-addressing hash table of capacity ints (vertex
+ * index + 1, or 0 for an empty slot) keyed on a hash of each vertex's encoded
+ * bytes, then vertexCount + 1 long offsets into the encoded vertices, then the
+ * vertices themselves as written by a VertexCodec.
+ * </P>
+ *
+ * <P>
+ * A MappedGraph may be queried by several threads at once.
+ * </P>
+ *
+ * @param <V>
+ */
+public class MappedGraph<V> {
+
+	private static final int MAGIC = 0x57475246; // "WGRF"
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 32;
+
+	private final MappedFile file;
+	private final VertexCodec<V> codec;
+	private final int vertexCount;
+	private final long edgeCount;
+	private final int hashCapacity;
+	private final long offsetsAt, targetsAt, weightsAt, hashAt, vertexOffsetsAt, verticesAt;
+
+	private final ThreadLocal<DijkstraWorkspace> workspaces = new ThreadLocal<DijkstraWorkspace>();
+
+	private MappedGraph(MappedFile file, VertexCodec<V> codec) throws IOException {
+		this.file = file;
+		this.codec = codec;
+		if (file.size() < HEADER_SIZE || file.getInt(0) != MAGIC) {
+			throw new IOException("not a graph file");
+		}
+		if (file.getInt(4) != FORMAT_VERSION) {
+			throw new IOException("unsupported graph file version " + file.getInt(4));
+		}
+		vertexCount = file.getInt(8);
+		hashCapacity = file.getInt(12);
+		edgeCount = file.getLong(16);
+		if (vertexCount < 0 || edgeCount < 0 || edgeCount > file.size() / 8) {
+			throw new IOException("corrupt graph file: " + vertexCount + " vertices, " + edgeCount + " edges");
+		}
+		/* lookups probe until an empty slot, so the table must have one */
+		if (hashCapacity <= vertexCount || Integer.bitCount(hashCapacity) != 1) {
+			throw new IOException("corrupt graph file: hash table capacity " + hashCapacity + " for "
+					+ vertexCount + " vertices");
+		}
+		offsetsAt = HEADER_SIZE;
+		targetsAt = offsetsAt + 8L * (vertexCount + 1);
+		weightsAt = targetsAt + 4 * edgeCount;
+		hashAt = weightsAt + 4 * edgeCount;
+		vertexOffsetsAt = hashAt + 4L * hashCapacity;
+		verticesAt = vertexOffsetsAt + 8L * (vertexCount + 1);
+		if (verticesAt > file.size()) {
+			throw new IOException("truncated graph file");
+		}
+		checkBody();
+	}
+
+	/*
+	 * Check every offset, target, weight and hash table entry once, so that
+	 * searches and lookups can trust them.
+	 */
+	private void checkBody() throws IOException {
+		long previous = 0;
+		for (int v = 0; v <= vertexCount; v++) {
+			long offset = file.getLong(offsetsAt + 8L * v);
+			if (offset < previous || offset > edgeCount || (v == 0 && offset != 0)) {
+				throw new IOException("corrupt graph file: edge offset " + offset + " of vertex " + v);
+			}
+			previous = offset;
+		}
+		if (previous != edgeCount) {
+			throw new IOException("corrupt graph file: edge offsets end at " + previous + " of " + edgeCount);
+		}
+		for (long e = 0; e < edgeCount; e++) {
+			int target = file.getInt(targetsAt + 4 * e);
+			int weight = file.getInt(weightsAt + 4 * e);
+			if (target < 0 || target >= vertexCount || weight < 0) {
+				throw new IOException("corrupt graph file: edge " + e + " to " + target + " of weight " + weight);
+			}
+		}
+		for (int slot = 0; slot < hashCapacity; slot++) {
+			int entry = file.getInt(hashAt + 4L * slot);
+			if (entry < 0 || entry > vertexCount) {
+				throw new IOException("corrupt graph file: hash table entry " + entry);
+			}
+		}
+		previous = 0;
+		for (int v = 0; v <= vertexCount; v++) {
+			long offset = file.getLong(vertexOffsetsAt + 8L * v);
+			if (offset < previous || offset - previous > VertexCodec.MAX_LENGTH || (v == 0 && offset != 0)
+					|| offset > file.size() - verticesAt) {
+				throw new IOException("corrupt graph file: vertex offset " + offset + " of vertex " + v);
+			}
+			previous = offset;
+		}
+	}
+
+	/**
+	 * Map a graph file written by WeightedGraph.save.
+	 *
+	 * @param path
+	 *            the file
+	 * @param codec
+	 *            the codec the vertices were written with
+	 * @return the mapped graph
+	 * @throws IOException
+	 *             if the file cannot be read, is not a graph file, or has
+	 *             offsets, edges or hash table entries out of range
+	 */
+	public static <V> MappedGraph<V> open(Path path, VertexCodec<V> codec) throws IOException {
+		return new MappedGraph<V>(new MappedFile(path), codec);
+	}
+
+	/**
+	 * Write the vertices and edges of a graph in the format described above.
+	 * Every section before the encoded vertices has a size that depends only on
+	 * the vertex and edge counts, so the vertices are encoded and streamed to
+	 * their place at the end of the file first, filling in the hash table and
+	 * vertex offsets, and the rest is written after them from the start.
+	 */
+	static <V> void write(CompactGraph<V> graph, Path path, VertexCodec<V> codec) throws IOException {
+		int n = graph.getVertexCount();
+		int capacity = Integer.highestOneBit(Math.max(1, n) * 2 - 1) << 1;
+		long dataAt = HEADER_SIZE + 8L * (n + 1) + 8L * graph.getEdgeCount() + 4L * capacity + 8L * (n + 1);
+		long[] vertexOffsets = new long[n + 1];
+		int[] table = new int[capacity];
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			channel.position(dataAt);
+			OutputStream vertices = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+			for (int v = 0; v < n; v++) {
+				byte[] bytes = encode(codec, graph.vertexAt(v));
+				if (bytes.length > VertexCodec.MAX_LENGTH) {
+					throw new IllegalArgumentException("vertex " + graph.vertexAt(v) + " encodes to more than "
+							+ VertexCodec.MAX_LENGTH + " bytes");
+				}
+				int slot = hash(bytes) & (capacity - 1);
+				while (table[slot] != 0) {
+					slot = (slot + 1) & (capacity - 1);
+				}
+				table[slot] = v + 1;
+				vertices.write(bytes);
+				vertexOffsets[v + 1] = vertexOffsets[v] + bytes.length;
+			}
+			vertices.flush();
+
+			channel.position(0);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(n);
+			out.writeInt(capacity);
+			out.writeLong(graph.getEdgeCount());
+			out.write(new byte[HEADER_SIZE - 24]);
+			for (int v = 0; v <= n; v++) {
+				out.writeLong(graph.offsets[v]);
+			}
+			for (int target : graph.targets) {
+				out.writeInt(target);
+			}
+			for (int weight : graph.weights) {
+				out.writeInt(weight);
+			}
+			for (int slot : table) {
+				out.writeInt(slot);
+			}
+			for (long offset : vertexOffsets) {
+				out.writeLong(offset);
+			}
+			out.flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * @return number of vertices in this graph
+	 */
+	public int getVertexCount() {
+		return vertexCount;
+	}
+
+	/**
+	 * @return number of directed edges in this graph
+	 */
+	public long getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Searches for a given vertex.
+	 *
+	 * @param vertex
+	 * @return true if the vertex is in the graph, false otherwise.
+	 */
+	public boolean containsVertex(V vertex) {
+		return indexOf(vertex) != -1;
+	}
+
+	/**
+	 * Returns the weight of the edge connecting one vertex to another.
+	 *
+	 * @param from
+	 * @param to
+	 * @return the weight of the edge, or null if there is no such edge
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph
+	 */
+	public Integer getWeight(V from, V to) {
+		int f = index(from);
+		int t = index(to);
+		for (long e = file.getLong(offsetsAt + 8L * f); e < file.getLong(offsetsAt + 8L * (f + 1)); e++) {
+			if (file.getInt(targetsAt + 4 * e) == t) {
+				return file.getInt(weightsAt + 4 * e);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the cost of the lowest cost path from start to end, with
+	 * Dijkstra's algorithm stopping as soon as end is finished.
+	 *
+	 * @param start
+	 * @param end
+	 * @return total weight of the path, or null if end cannot be reached
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph
+	 */
+	public Integer dijkstraDistance(V start, V end) {
+		int t = index(end);
+		DijkstraWorkspace ws = search(index(start), t);
+		try {
+			return ws.isFinished(t) ? ws.distance[t] : null;
+		} finally {
+			ws.inUse = false;
+		}
+	}
+
+	/**
+	 * Returns the lowest cost path from start to end, with Dijkstra's algorithm
+	 * stopping as soon as end is finished.
+	 *
+	 * @param start
+	 * @param end
+	 * @return the path, beginning with start and ending with end, or an empty
+	 *         list if end cannot be reached
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph
+	 */
+	public List<V> dijkstraPath(V start, V end) {
+		int t = index(end);
+		DijkstraWorkspace ws = search(index(start), t);
+		try {
+			List<V> path = new ArrayList<V>();
+			if (ws.isFinished(t)) {
+				for (int v = t; v != -1; v = ws.predecessor[v]) {
+					path.add(vertexAt(v));
+				}
+				Collections.reverse(path);
+			}
+			return path;
+		} finally {
+			ws.inUse = false;
+		}
+	}
+
+	/**
+	 * Load the whole file into an ordinary WeightedGraph, with the vertices
+	 * added in the order they were saved.
+	 *
+	 * @return a new WeightedGraph with the same vertices and edges
+	 */
+	public WeightedGraph<V> toWeightedGraph() {
+		WeightedGraph<V> graph = new WeightedGraph<V>();
+		List<V> vertices = new ArrayList<V>(vertexCount);
+		for (int v = 0; v < vertexCount; v++) {
+			vertices.add(vertexAt(v));
+			graph.addVertex(vertices.get(v));
+		}
+		for (int v = 0; v < vertexCount; v++) {
+			for (long e = file.getLong(offsetsAt + 8L * v); e < file.getLong(offsetsAt + 8L * (v + 1)); e++) {
+				graph.addEdge(vertices.get(v), vertices.get(file.getInt(targetsAt + 4 * e)),
+						file.getInt(weightsAt + 4 * e));
+			}
+		}
+		return graph;
+	}
+
+	/**
+	 * Returns the index of a vertex, found through the hash table of encoded
+	 * vertices.
+	 *
+	 * @return the index, or -1 if the vertex is not in the graph
+	 */
+	int indexOf(V vertex) {
+		byte[] key = encode(codec, vertex);
+		int slot = hash(key) & (hashCapacity - 1);
+		while (true) {
+			int entry = file.getInt(hashAt + 4L * slot);
+			if (entry == 0) {
+				return -1;
+			}
+			long start = file.getLong(vertexOffsetsAt + 8L * (entry - 1));
+			long end = file.getLong(vertexOffsetsAt + 8L * entry);
+			if (end - start == key.length && file.matches(verticesAt + start, key)) {
+				return entry - 1;
+			}
+			slot = (slot + 1) & (hashCapacity - 1);
+		}
+	}
+
+	V vertexAt(int index) {
+		try {
+			return codec.read(new DataInputStream(new ByteArrayInputStream(bytesOf(index))));
+		} catch (IOException e) {
+			throw new IllegalStateException("corrupt vertex " + index, e);
+		}
+	}
+
+	/**
+	 * Dijkstra's algorithm from s until t is finished, reading edges from the
+	 * mapping. The caller must clear inUse on the returned workspace.
+	 */
+	private DijkstraWorkspace search(int s, int t) {
+		DijkstraWorkspace ws = DijkstraWorkspace.acquire(workspaces, vertexCount);
+		ws.reach(s, 0, -1);
+		ws.heap.insert(s, 0);
+		while (!ws.heap.isEmpty()) {
+			int v = ws.heap.poll();
+			ws.finish(v);
+			if (v == t) {
+				break;
+			}
+			long last = file.getLong(offsetsAt + 8L * (v + 1));
+			for (long e = file.getLong(offsetsAt + 8L * v); e < last; e++) {
+				int w = file.getInt(targetsAt + 4 * e);
+				int d = ws.distance[v] + file.getInt(weightsAt + 4 * e);
+				if (!ws.isReached(w) || (!ws.isFinished(w) && d < ws.distance[w])) {
+					ws.reach(w, d, v);
+					ws.heap.insertOrDecrease(w, d);
+				}
+			}
+		}
+		return ws;
+	}
+
+	private int index(V vertex) {
+		int v = indexOf(vertex);
+		if (v == -1) {
+			throw new IllegalArgumentException();
+		}
+		return v;
+	}
+
+	private byte[] bytesOf(int index) {
+		long start = file.getLong(vertexOffsetsAt + 8L * index);
+		long end = file.getLong(vertexOffsetsAt + 8L * (index + 1));
+		byte[] bytes = new byte[(int) (end - start)];
+		file.get(verticesAt + start, bytes);
+		return bytes;
+	}
+
+	private static <V> byte[] encode(VertexCodec<V> codec, V vertex) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(16);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			codec.write(vertex, out);
+			out.flush();
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/* FNV-1a */
+	private static int hash(byte[] bytes) {
+		int h = 0x811c9dc5;
+		for (byte b : bytes) {
+			h = (h ^ (b & 0xff)) * 0x01000193;
+		}
+		return h ^ (h >>> 16);
+	}
+}
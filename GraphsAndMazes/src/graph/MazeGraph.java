@@ -1,5 +1,8 @@
 package graph;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import graph.WeightedGraph;
 import maze.Juncture;
 import maze.Maze;
@@ -9,10 +12,24 @@ import maze.Maze;
  * The MazeGraph is an extension of WeightedGraph. The constructor converts a
  * Maze into a graph.
  * </P>
+ * 
+ * <P>
+ * The searches examine the neighbors of a juncture in the order right, down,
+ * left, up, so they visit junctures in the same order as the searches of a
+ * GridMazeGraph on the same maze.
+ * </P>
  */
 public class MazeGraph extends WeightedGraph<Juncture> {
 
 	public Maze theMaze;
+
+	/*
+	 * Smallest weight of any edge ever added to the graph, used to scale the
+	 * Manhattan distance heuristic. It is lowered by every addEdge, including
+	 * edges changed through a DynamicShortestPathTree, and never raised, so the
+	 * heuristic never overestimates.
+	 */
+	private int minWeight = Integer.MAX_VALUE;
 	/*
 	 * STUDENTS: SEE THE PROJECT DESCRIPTION FOR A MUCH MORE DETAILED EXPLANATION
 	 * ABOUT HOW TO WRITE THIS CONSTRUCTOR
@@ -58,17 +75,72 @@ public class MazeGraph extends WeightedGraph<Juncture> {
 				addVertex(js[y][x]);
 			}
 		}
+		/* each juncture's edges are added right, down, left, up; see newNeighborMap */
 		for (int y = 0; y < maze.getMazeHeight() ; y++) {
 			for (int x = 0; x < maze.getMazeWidth() ; x++) {
 				if (!maze.isWallToRight(js[y][x])) {
 					addEdge(js[y][x], js[y][x + 1], maze.getWeightToRight(js[y][x]));
-					addEdge(js[y][x + 1], js[y][x], maze.getWeightToRight(js[y][x]));
 				}
 				if (!maze.isWallBelow(js[y][x])) {
 					addEdge(js[y][x], js[y + 1][x], maze.getWeightBelow(js[y][x]));
-					addEdge(js[y + 1][x], js[y][x], maze.getWeightBelow(js[y][x]));
+				}
+				if (!maze.isWallToLeft(js[y][x])) {
+					addEdge(js[y][x], js[y][x - 1], maze.getWeightToLeft(js[y][x]));
+				}
+				if (!maze.isWallAbove(js[y][x])) {
+					addEdge(js[y][x], js[y - 1][x], maze.getWeightAbove(js[y][x]));
 				}
 			}
 		}
 	}
+
+	/*
+	 * Keeps each juncture's edges in the order they were added, so searches
+	 * examine neighbors right, down, left, up.
+	 */
+	@Override
+	Map<Juncture, Integer> newNeighborMap() {
+		return new LinkedHashMap<Juncture, Integer>(8);
+	}
+
+	@Override
+	public void addEdge(Juncture from, Juncture to, Integer weight) {
+		super.addEdge(from, to, weight);
+		minWeight = Math.min(minWeight, weight);
+	}
+
+	/**
+	 * <P>
+	 * Returns a heuristic for DoAStar that estimates the cost between two
+	 * junctures as their Manhattan distance times the smallest edge weight in
+	 * the maze. Every move changes x or y by one and costs at least that much,
+	 * so the estimate is consistent. The heuristic reads the smallest weight
+	 * when it is created, so create a new one after adding edges.
+	 * </P>
+	 * 
+	 * @return Manhattan-distance heuristic for this maze
+	 */
+	public Heuristic<Juncture> manhattanHeuristic() {
+		final int scale = minWeight == Integer.MAX_VALUE ? 0 : minWeight;
+		return new Heuristic<Juncture>() {
+
+			@Override
+			public int estimate(Juncture vertex, Juncture goal) {
+				return scale * (Math.abs(vertex.getX() - goal.getX()) + Math.abs(vertex.getY() - goal.getY()));
+			}
+		};
+	}
+
+	/**
+	 * Perform an A* search from start to end using the Manhattan-distance
+	 * heuristic. See WeightedGraph.DoAStar.
+	 * 
+	 * @param start
+	 *            vertex where algorithm will start
+	 * @param end
+	 *            the algorithm terminates once this vertex is finished
+	 */
+	public void DoAStar(Juncture start, Juncture end) {
+		DoAStar(start, end, manhattanHeuristic());
+	}
 }
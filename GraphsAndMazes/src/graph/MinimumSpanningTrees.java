@@ -0,0 +1,308 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <P>
+ * Kruskal's, Prim's and Boruvka's minimum spanning forest algorithms over the
+ * CSR arrays of a CompactGraph.
+ * </P>
+ *
+ * <P>
+ * Every directed edge u -> v (other than a loop) is treated as an undirected
+ * edge {u, v}; when both directions are present the cheaper one is used.
+ * Kruskal's and Boruvka's algorithms break ties between equal weights by edge
+ * position in the CSR arrays, so they return the same forest. Prim's heap
+ * orders vertices by weight alone, so when weights tie it may pick a different
+ * forest; only the total weight is guaranteed to match.
+ * </P>
+ */
+class MinimumSpanningTrees {
+
+	/* number of edges or vertices one Boruvka task handles */
+	private static final int GRAIN = 8192;
+
+	private MinimumSpanningTrees() {
+	}
+
+	/**
+	 * Kruskal's algorithm: take edges from cheapest to most expensive, keeping
+	 * each one that joins two different trees of a union-find forest.
+	 */
+	static <V> SpanningForest<V> kruskal(CompactGraph<?> graph, VertexIndex<V> index) {
+		int n = graph.getVertexCount();
+		int[] weights = graph.weights;
+		long[] order = new long[weights.length];
+		for (int e = 0; e < weights.length; e++) {
+			order[e] = key(weights[e], e);
+		}
+		Arrays.sort(order);
+		int[] sources = sources(graph);
+		UnionFind forest = new UnionFind(n);
+		Builder builder = new Builder(n);
+		for (long k : order) {
+			int e = (int) k;
+			if (forest.union(sources[e], graph.targets[e])) {
+				builder.add(sources[e], graph.targets[e], weights[e]);
+				if (builder.count == n - 1) {
+					break;
+				}
+			}
+		}
+		return builder.build(index, n);
+	}
+
+	/**
+	 * Prim's algorithm: grow one tree at a time from an unvisited root, always
+	 * adding the cheapest edge that leaves the tree, found with an indexed heap.
+	 */
+	static <V> SpanningForest<V> prim(CompactGraph<?> graph, VertexIndex<V> index) {
+		int n = graph.getVertexCount();
+		int[] sources = sources(graph);
+		/* undirected adjacency: the id of every edge touching each vertex */
+		int[] offsets = new int[n + 1];
+		for (int e = 0; e < sources.length; e++) {
+			offsets[sources[e] + 1]++;
+			offsets[graph.targets[e] + 1]++;
+		}
+		for (int v = 0; v < n; v++) {
+			offsets[v + 1] += offsets[v];
+		}
+		int[] incident = new int[2 * sources.length];
+		int[] fill = Arrays.copyOf(offsets, n);
+		for (int e = 0; e < sources.length; e++) {
+			incident[fill[sources[e]]++] = e;
+			incident[fill[graph.targets[e]]++] = e;
+		}
+
+		boolean[] inTree = new boolean[n];
+		int[] bestEdge = new int[n];
+		long[] bestKey = new long[n];
+		Arrays.fill(bestKey, Long.MAX_VALUE);
+		/* the heap orders by weight; bestKey breaks ties between edges into one vertex */
+		IndexedMinHeap heap = new IndexedMinHeap(n);
+		Builder builder = new Builder(n);
+		for (int root = 0; root < n; root++) {
+			if (inTree[root]) {
+				continue;
+			}
+			bestEdge[root] = -1;
+			heap.insert(root, 0);
+			while (!heap.isEmpty()) {
+				int v = heap.poll();
+				inTree[v] = true;
+				if (bestEdge[v] != -1) {
+					int e = bestEdge[v];
+					builder.add(sources[e], graph.targets[e], graph.weights[e]);
+				}
+				for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+					int e = incident[i];
+					int w = sources[e] == v ? graph.targets[e] : sources[e];
+					long k = key(graph.weights[e], e);
+					if (!inTree[w] && k < bestKey[w]) {
+						bestKey[w] = k;
+						bestEdge[w] = e;
+						heap.insertOrDecrease(w, graph.weights[e]);
+					}
+				}
+			}
+		}
+		return builder.build(index, n);
+	}
+
+	/**
+	 * <P>
+	 * Boruvka's algorithm: in each round, every tree picks the cheapest edge
+	 * leaving it, and all picked edges are added at once. The number of trees
+	 * at least halves per round, so there are O(log V) rounds.
+	 * </P>
+	 *
+	 * <P>
+	 * The expensive parts of a round, scanning every edge for the cheapest one
+	 * per tree and relabelling every vertex with its new tree, are split into
+	 * ranges and run on the given pool. The per-tree minimum is kept in an
+	 * AtomicLongArray, indexed by the root vertex of each tree, and lowered
+	 * with compare-and-set. Resetting the minimums and adding the picked edges
+	 * only touch the roots of the trees left, which shrink with every round.
+	 * </P>
+	 */
+	static <V> SpanningForest<V> boruvka(final CompactGraph<?> graph, VertexIndex<V> index, ForkJoinPool pool) {
+		final int n = graph.getVertexCount();
+		final int[] sources = sources(graph);
+		final int[] targets = graph.targets;
+		final int[] weights = graph.weights;
+		final int[] tree = new int[n];
+		for (int v = 0; v < n; v++) {
+			tree[v] = v;
+		}
+		final UnionFind forest = new UnionFind(n);
+		final AtomicLongArray cheapest = new AtomicLongArray(n);
+		/* the first rootCount entries are the roots of the current trees, ascending */
+		final int[] roots = new int[n];
+		for (int v = 0; v < n; v++) {
+			roots[v] = v;
+		}
+		int rootCount = n;
+		Builder builder = new Builder(n);
+		boolean merged = true;
+		while (merged) {
+			ParallelRanges.run(pool, rootCount, GRAIN, new ParallelRanges.Range() {
+
+				@Override
+				public void run(int lo, int hi) {
+					for (int i = lo; i < hi; i++) {
+						cheapest.set(roots[i], Long.MAX_VALUE);
+					}
+				}
+			});
+			ParallelRanges.run(pool, sources.length, GRAIN, new ParallelRanges.Range() {
+
+				@Override
+				public void run(int lo, int hi) {
+					for (int e = lo; e < hi; e++) {
+						int a = tree[sources[e]];
+						int b = tree[targets[e]];
+						if (a != b) {
+							long k = key(weights[e], e);
+							lower(cheapest, a, k);
+							lower(cheapest, b, k);
+						}
+					}
+				}
+			});
+			merged = false;
+			for (int i = 0; i < rootCount; i++) {
+				long k = cheapest.get(roots[i]);
+				if (k != Long.MAX_VALUE) {
+					int e = (int) k;
+					if (forest.union(sources[e], targets[e])) {
+						builder.add(sources[e], targets[e], weights[e]);
+						merged = true;
+					}
+				}
+			}
+			forest.flatten();
+			int kept = 0;
+			for (int i = 0; i < rootCount; i++) {
+				if (forest.parent[roots[i]] == roots[i]) {
+					roots[kept++] = roots[i];
+				}
+			}
+			rootCount = kept;
+			ParallelRanges.run(pool, n, GRAIN, new ParallelRanges.Range() {
+
+				@Override
+				public void run(int lo, int hi) {
+					for (int v = lo; v < hi; v++) {
+						tree[v] = forest.parent[v];
+					}
+				}
+			});
+		}
+		return builder.build(index, n);
+	}
+
+	private static void lower(AtomicLongArray cheapest, int i, long k) {
+		long current = cheapest.get(i);
+		while (k < current && !cheapest.compareAndSet(i, current, k)) {
+			current = cheapest.get(i);
+		}
+	}
+
+	/* weight in the high half, edge position in the low half */
+	private static long key(int weight, int edge) {
+		return ((long) weight << 32) | edge;
+	}
+
+	/**
+	 * The source vertex of every edge position in the CSR arrays.
+	 */
+	private static int[] sources(CompactGraph<?> graph) {
+		int[] sources = new int[graph.targets.length];
+		for (int v = 0; v < graph.getVertexCount(); v++) {
+			Arrays.fill(sources, graph.offsets[v], graph.offsets[v + 1], v);
+		}
+		return sources;
+	}
+
+	/*
+	 * Union-find with path halving and union by size.
+	 */
+	private static class UnionFind {
+		final int[] parent;
+		final int[] size;
+
+		UnionFind(int n) {
+			parent = new int[n];
+			size = new int[n];
+			for (int v = 0; v < n; v++) {
+				parent[v] = v;
+				size[v] = 1;
+			}
+		}
+
+		int find(int v) {
+			while (parent[v] != v) {
+				parent[v] = parent[parent[v]];
+				v = parent[v];
+			}
+			return v;
+		}
+
+		/**
+		 * @return false if a and b were already in the same set
+		 */
+		boolean union(int a, int b) {
+			a = find(a);
+			b = find(b);
+			if (a == b) {
+				return false;
+			}
+			if (size[a] < size[b]) {
+				int t = a;
+				a = b;
+				b = t;
+			}
+			parent[b] = a;
+			size[a] += size[b];
+			return true;
+		}
+
+		/**
+		 * Point every element straight at its root.
+		 */
+		void flatten() {
+			for (int v = 0; v < parent.length; v++) {
+				parent[v] = find(v);
+			}
+		}
+	}
+
+	/*
+	 * Collects the chosen edges; a forest has at most n - 1 of them.
+	 */
+	private static class Builder {
+		final int[] from, to, weight;
+		int count;
+
+		Builder(int n) {
+			from = new int[Math.max(0, n - 1)];
+			to = new int[from.length];
+			weight = new int[from.length];
+		}
+
+		void add(int u, int v, int w) {
+			from[count] = u;
+			to[count] = v;
+			weight[count] = w;
+			count++;
+		}
+
+		<V> SpanningForest<V> build(VertexIndex<V> index, int n) {
+			return new SpanningForest<V>(index, n, Arrays.copyOf(from, count), Arrays.copyOf(to, count),
+					Arrays.copyOf(weight, count));
+		}
+	}
+}
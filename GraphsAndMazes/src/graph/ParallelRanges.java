@@ -0,0 +1,55 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Runs a loop over [0, size) on a ForkJoinPool, split into ranges of a fixed
+ * number of indices, and waits for all of them.
+ */
+class ParallelRanges {
+
+	/**
+	 * A piece of work over the index range [lo, hi).
+	 */
+	interface Range {
+		void run(int lo, int hi);
+	}
+
+	private ParallelRanges() {
+	}
+
+	/**
+	 * @param pool
+	 *            pool to run the ranges on
+	 * @param size
+	 *            number of indices
+	 * @param grain
+	 *            maximum number of indices per range
+	 * @param work
+	 *            loop body over one range
+	 */
+	static void run(ForkJoinPool pool, int size, int grain, final Range work) {
+		if (size <= grain || pool.getParallelism() == 1) {
+			work.run(0, size);
+			return;
+		}
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (int lo = 0; lo < size; lo += grain) {
+			final int from = lo;
+			final int to = Math.min(size, lo + grain);
+			tasks.add(pool.submit(new Runnable() {
+
+				@Override
+				public void run() {
+					work.run(from, to);
+				}
+			}));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+	}
+}
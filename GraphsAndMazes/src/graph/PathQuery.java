@@ -0,0 +1,44 @@
+package graph;
+
+/**
+ * A shortest-path query: a pair of "start" and "end" vertices, used by
+ * WeightedGraph.shortestPaths to answer many queries in one batch.
+ *
+ * @param <V>
+ */
+public class PathQuery<V> {
+
+	private final V start, end;
+
+	public PathQuery(V start, V end) {
+		this.start = start;
+		this.end = end;
+	}
+
+	public V getStart() {
+		return start;
+	}
+
+	public V getEnd() {
+		return end;
+	}
+
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof PathQuery)) {
+			return false;
+		}
+		PathQuery<?> q = (PathQuery<?>) other;
+		return start.equals(q.start) && end.equals(q.end);
+	}
+
+	public int hashCode() {
+		return start.hashCode() * 31 + end.hashCode();
+	}
+
+	public String toString() {
+		return start + " -> " + end;
+	}
+}
@@ -0,0 +1,304 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <P>
+ * A component label for every vertex of a WeightedGraph, by vertex index,
+ * that answers "can end be reached from start" without searching the graph.
+ * </P>
+ *
+ * <P>
+ * When every edge has a reverse edge (as in a MazeGraph), the labels are the
+ * connected components, kept in a union-find structure, and end is reachable
+ * exactly when both vertices have the same label. Otherwise the labels are the
+ * strongly connected components found by Tarjan's algorithm, numbered in a
+ * topological order of the component graph. Equal labels then mean reachable
+ * and a smaller label for end means unreachable, both in O(1); only the
+ * remaining case searches the (usually much smaller) component graph.
+ * </P>
+ *
+ * <P>
+ * The index is told about every change to the graph. Adding a vertex, adding
+ * an edge to a symmetric graph, or adding an edge that follows the topological
+ * order of a directed graph is absorbed immediately. An edge added to a
+ * symmetric graph before its reverse (MazeGraph adds both halves of a passage
+ * one after the other) is held as pending, and its two ends are joined once
+ * the reverse edge arrives. Any other change (removing an edge, or an edge
+ * that may merge strongly connected components) marks the index stale, and it
+ * is rebuilt on the next query; so is a query made while some edges of a
+ * symmetric graph are still waiting for their reverse.
+ * </P>
+ */
+class ReachabilityIndex {
+
+	private boolean stale = true;
+	private boolean undirected;
+	private int vertexCount;
+	private long rebuildCount;
+
+	/* one-way edges (from << 32 | to) of a symmetric graph whose reverse is missing */
+	private final Set<Long> pending = new HashSet<Long>();
+
+	/* union-find forest, used when undirected */
+	private int[] parent = new int[0];
+	private int[] size = new int[0];
+
+	/* component of each vertex and edges between components, when directed */
+	private int[] label = new int[0];
+	private int componentCount;
+	private List<List<Integer>> successors = new ArrayList<List<Integer>>();
+
+	/* visited stamps of the search over the component graph */
+	private int[] seen = new int[0];
+	private int generation;
+
+	/**
+	 * @return true if the labels must be rebuilt before the next query
+	 */
+	boolean isStale() {
+		return stale || !pending.isEmpty();
+	}
+
+	/**
+	 * @return number of times rebuild has run
+	 */
+	long getRebuildCount() {
+		return rebuildCount;
+	}
+
+	/**
+	 * Recompute every label from the graph.
+	 *
+	 * @param graph
+	 *            CSR copy of the graph, indexed like it
+	 * @param symmetric
+	 *            true if every edge of the graph has a reverse edge
+	 */
+	void rebuild(CompactGraph<?> graph, boolean symmetric) {
+		rebuildCount++;
+		pending.clear();
+		vertexCount = graph.getVertexCount();
+		undirected = symmetric;
+		if (undirected) {
+			parent = new int[vertexCount];
+			size = new int[vertexCount];
+			for (int v = 0; v < vertexCount; v++) {
+				parent[v] = v;
+				size[v] = 1;
+			}
+			for (int v = 0; v < vertexCount; v++) {
+				for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+					union(v, graph.targets[e]);
+				}
+			}
+		} else {
+			label = new int[vertexCount];
+			strongComponents(graph.offsets, graph.targets);
+			successors = new ArrayList<List<Integer>>(componentCount);
+			for (int c = 0; c < componentCount; c++) {
+				successors.add(new ArrayList<Integer>());
+			}
+			for (int v = 0; v < vertexCount; v++) {
+				for (int e = graph.offsets[v]; e < graph.offsets[v + 1]; e++) {
+					int w = graph.targets[e];
+					if (label[v] != label[w]) {
+						successors.get(label[v]).add(label[w]);
+					}
+				}
+			}
+			seen = new int[componentCount];
+			generation = 0;
+		}
+		stale = false;
+	}
+
+	void vertexAdded() {
+		if (stale) {
+			return;
+		}
+		int v = vertexCount++;
+		if (undirected) {
+			if (v == parent.length) {
+				parent = Arrays.copyOf(parent, Math.max(16, 2 * v));
+				size = Arrays.copyOf(size, parent.length);
+			}
+			parent[v] = v;
+			size[v] = 1;
+		} else {
+			/* an isolated vertex may go last in the topological order */
+			if (v == label.length) {
+				label = Arrays.copyOf(label, Math.max(16, 2 * v));
+			}
+			label[v] = componentCount++;
+			successors.add(new ArrayList<Integer>());
+			if (seen.length < componentCount) {
+				seen = Arrays.copyOf(seen, Math.max(16, 2 * componentCount));
+			}
+		}
+	}
+
+	/**
+	 * @param reverseExists
+	 *            true if the graph also has an edge from to back to from
+	 */
+	void edgeAdded(int from, int to, boolean reverseExists) {
+		if (stale) {
+			return;
+		}
+		if (undirected) {
+			if (reverseExists) {
+				pending.remove((long) to << 32 | from);
+				union(from, to);
+			} else {
+				pending.add((long) from << 32 | to);
+			}
+		} else if (label[from] < label[to]) {
+			successors.get(label[from]).add(label[to]);
+		} else if (label[from] > label[to]) {
+			stale = true;
+		}
+	}
+
+	void edgeRemoved() {
+		stale = true;
+	}
+
+	/**
+	 * @return the component label of v: its union-find root if the graph is
+	 *         symmetric, otherwise the topological number of its strongly
+	 *         connected component
+	 */
+	int component(int v) {
+		return undirected ? find(v) : label[v];
+	}
+
+	boolean reachable(int from, int to) {
+		if (undirected) {
+			return find(from) == find(to);
+		}
+		int source = label[from];
+		int target = label[to];
+		if (source == target) {
+			return true;
+		}
+		if (source > target) {
+			return false;
+		}
+		/* DFS over the component graph, skipping components after target */
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(seen, 0);
+			generation = 0;
+		}
+		generation++;
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = source;
+		seen[source] = generation;
+		while (top > 0) {
+			int c = stack[--top];
+			for (int next : successors.get(c)) {
+				if (next == target) {
+					return true;
+				}
+				if (next < target && seen[next] != generation) {
+					seen[next] = generation;
+					if (top == stack.length) {
+						stack = Arrays.copyOf(stack, 2 * top);
+					}
+					stack[top++] = next;
+				}
+			}
+		}
+		return false;
+	}
+
+	private int find(int v) {
+		while (parent[v] != v) {
+			parent[v] = parent[parent[v]];
+			v = parent[v];
+		}
+		return v;
+	}
+
+	private void union(int a, int b) {
+		a = find(a);
+		b = find(b);
+		if (a == b) {
+			return;
+		}
+		if (size[a] < size[b]) {
+			int t = a;
+			a = b;
+			b = t;
+		}
+		parent[b] = a;
+		size[a] += size[b];
+	}
+
+	/**
+	 * Iterative Tarjan's algorithm. Components are completed in reverse
+	 * topological order, so the k-th completed one is labelled count - 1 - k.
+	 */
+	private void strongComponents(int[] offsets, int[] targets) {
+		int n = vertexCount;
+		int[] index = new int[n];
+		int[] low = new int[n];
+		boolean[] onStack = new boolean[n];
+		int[] components = new int[n];
+		int[] frames = new int[2 * n];
+		Arrays.fill(index, -1);
+		int counter = 0, sccTop = 0, completed = 0;
+		for (int root = 0; root < n; root++) {
+			if (index[root] != -1) {
+				continue;
+			}
+			int top = 0;
+			index[root] = low[root] = counter++;
+			components[sccTop++] = root;
+			onStack[root] = true;
+			frames[top++] = root;
+			frames[top++] = offsets[root];
+			while (top > 0) {
+				int v = frames[top - 2];
+				int e = frames[top - 1];
+				if (e < offsets[v + 1]) {
+					frames[top - 1]++;
+					int w = targets[e];
+					if (index[w] == -1) {
+						index[w] = low[w] = counter++;
+						components[sccTop++] = w;
+						onStack[w] = true;
+						frames[top++] = w;
+						frames[top++] = offsets[w];
+					} else if (onStack[w]) {
+						low[v] = Math.min(low[v], index[w]);
+					}
+					continue;
+				}
+				top -= 2;
+				if (low[v] == index[v]) {
+					int w;
+					do {
+						w = components[--sccTop];
+						onStack[w] = false;
+						label[w] = completed;
+					} while (w != v);
+					completed++;
+				}
+				if (top > 0) {
+					int p = frames[top - 2];
+					low[p] = Math.min(low[p], low[v]);
+				}
+			}
+		}
+		componentCount = completed;
+		for (int v = 0; v < n; v++) {
+			label[v] = completed - 1 - label[v];
+		}
+	}
+}
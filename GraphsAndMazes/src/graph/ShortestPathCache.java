@@ -0,0 +1,194 @@
+package graph;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <P>
+ * A bounded cache of Dijkstra shortest-path trees in front of a WeightedGraph,
+ * for callers that ask for paths out of the same few source vertices over and
+ * over. The first query from a source runs a full Dijkstra and keeps the
+ * resulting ShortestPathTree; later queries from that source are lookups.
+ * </P>
+ *
+ * <P>
+ * Entries are keyed on the source and the graph version they were computed
+ * at. Any change to the graph bumps its version, which invalidates every
+ * cached tree. When the cache holds more trees than allowed, or their
+ * estimated size exceeds the memory budget, the least recently used trees are
+ * evicted.
+ * </P>
+ *
+ * <P>
+ * The cache may be queried by several threads at once, as long as nobody
+ * changes the graph at the same time.
+ * </P>
+ */
+public class ShortestPathCache<V> {
+
+	/* rough size of a tree: two ints per vertex plus object overhead */
+	private static final long BYTES_PER_VERTEX = 8, BYTES_PER_TREE = 64;
+
+	private final WeightedGraph<V> graph;
+	private final int maxTrees;
+	private final long maxBytes;
+
+	/* in access order, least recently used first */
+	private final LinkedHashMap<V, ShortestPathTree<V>> trees = new LinkedHashMap<V, ShortestPathTree<V>>(16, 0.75f,
+			true);
+	private long version;
+	private long bytes;
+	private long hits, misses;
+
+	/**
+	 * Create a cache limited only by the number of trees.
+	 *
+	 * @param graph
+	 *            graph whose shortest paths are cached
+	 * @param maxTrees
+	 *            maximum number of source vertices to keep trees for
+	 * @throws IllegalArgumentException
+	 *             if maxTrees is less than 1
+	 */
+	public ShortestPathCache(WeightedGraph<V> graph, int maxTrees) {
+		this(graph, maxTrees, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Create a cache limited by the number of trees and their estimated size.
+	 *
+	 * @param graph
+	 *            graph whose shortest paths are cached
+	 * @param maxTrees
+	 *            maximum number of source vertices to keep trees for
+	 * @param maxBytes
+	 *            memory budget for the cached trees; the most recent tree is
+	 *            always kept, even if it alone exceeds the budget
+	 * @throws IllegalArgumentException
+	 *             if maxTrees is less than 1 or maxBytes is negative
+	 */
+	public ShortestPathCache(WeightedGraph<V> graph, int maxTrees, long maxBytes) {
+		if (maxTrees < 1 || maxBytes < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.graph = graph;
+		this.maxTrees = maxTrees;
+		this.maxBytes = maxBytes;
+		version = graph.getVersion();
+	}
+
+	/**
+	 * Returns the shortest-path tree from a source, computing it if it is not
+	 * cached for the current version of the graph.
+	 *
+	 * @param source
+	 * @return the Dijkstra tree rooted at source
+	 * @throws IllegalArgumentException
+	 *             if source is not in the graph
+	 */
+	public ShortestPathTree<V> getTree(V source) {
+		synchronized (this) {
+			if (version != graph.getVersion()) {
+				clear();
+				version = graph.getVersion();
+			}
+			ShortestPathTree<V> tree = trees.get(source);
+			if (tree != null) {
+				hits++;
+				return tree;
+			}
+			misses++;
+		}
+		/* search outside the lock, so other sources can be looked up meanwhile */
+		long builtAt = graph.getVersion();
+		ShortestPathTree<V> tree = graph.dijkstraTree(source);
+		synchronized (this) {
+			if (builtAt == version && !trees.containsKey(source)) {
+				trees.put(source, tree);
+				bytes += sizeOf(tree);
+				evict();
+			}
+		}
+		return tree;
+	}
+
+	/**
+	 * Returns the lowest cost path from start to end.
+	 *
+	 * @param start
+	 * @param end
+	 * @return the path, beginning with start and ending with end, or an empty
+	 *         list if end cannot be reached
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph
+	 */
+	public List<V> getPath(V start, V end) {
+		return getTree(start).getPath(end);
+	}
+
+	/**
+	 * Returns the cost of the lowest cost path from start to end.
+	 *
+	 * @param start
+	 * @param end
+	 * @return total weight of the path, or null if end cannot be reached
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph
+	 */
+	public Integer getDistance(V start, V end) {
+		return getTree(start).getDistance(end);
+	}
+
+	/**
+	 * Discard every cached tree.
+	 */
+	public synchronized void clear() {
+		trees.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * @return number of trees currently cached
+	 */
+	public synchronized int size() {
+		return trees.size();
+	}
+
+	/**
+	 * @return estimated number of bytes held by the cached trees
+	 */
+	public synchronized long getEstimatedBytes() {
+		return bytes;
+	}
+
+	/**
+	 * @return number of queries answered from the cache
+	 */
+	public synchronized long getHitCount() {
+		return hits;
+	}
+
+	/**
+	 * @return number of queries that had to run Dijkstra's algorithm
+	 */
+	public synchronized long getMissCount() {
+		return misses;
+	}
+
+	/**
+	 * Drop least recently used trees until both limits hold again.
+	 */
+	private void evict() {
+		Iterator<Map.Entry<V, ShortestPathTree<V>>> it = trees.entrySet().iterator();
+		while (trees.size() > 1 && (trees.size() > maxTrees || bytes > maxBytes)) {
+			bytes -= sizeOf(it.next().getValue());
+			it.remove();
+		}
+	}
+
+	private static long sizeOf(ShortestPathTree<?> tree) {
+		return BYTES_PER_TREE + BYTES_PER_VERTEX * tree.size();
+	}
+}
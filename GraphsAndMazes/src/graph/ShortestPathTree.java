@@ -0,0 +1,164 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <P>
+ * The result of a search from one source vertex: for every vertex the search
+ * reached, its distance from the source and its predecessor on the way there.
+ * The distance to, or path to, any vertex can then be looked up as often as
+ * needed without searching again.
+ * </P>
+ *
+ * <P>
+ * What the distance means depends on the search that built the tree. For
+ * Dijkstra's algorithm it is the total weight of the cheapest path. For BFS it
+ * is the number of edges on the shortest path. For DFS it is the depth of the
+ * vertex in the DFS tree, which need not be a shortest distance of any kind.
+ * </P>
+ *
+ * <P>
+ * The tree is immutable and backed by int arrays indexed like the graph it
+ * came from. Vertices added to the graph later count as unreached.
+ * </P>
+ */
+public class ShortestPathTree<V> {
+
+	private static final int UNREACHED = Integer.MAX_VALUE;
+
+	private final V source;
+	private final int[] distance;
+	private final int[] predecessor;
+	private final VertexIndex<V> index;
+
+	/**
+	 * @param source
+	 *            vertex the search started from
+	 * @param distance
+	 *            distance of each vertex by index, Integer.MAX_VALUE if unreached
+	 * @param predecessor
+	 *            predecessor of each vertex by index, -1 for the source and
+	 *            unreached vertices
+	 * @param index
+	 *            translation between vertices and indices
+	 */
+	ShortestPathTree(V source, int[] distance, int[] predecessor, VertexIndex<V> index) {
+		this.source = source;
+		this.distance = distance;
+		this.predecessor = predecessor;
+		this.index = index;
+	}
+
+	/**
+	 * @return the vertex the search started from
+	 */
+	public V getSource() {
+		return source;
+	}
+
+	/**
+	 * @param vertex
+	 * @return true if the search reached the vertex
+	 * @throws IllegalArgumentException
+	 *             if the vertex is not in the graph
+	 */
+	public boolean isReachable(V vertex) {
+		int v = indexOf(vertex);
+		return v < distance.length && distance[v] != UNREACHED;
+	}
+
+	/**
+	 * Returns the distance of a vertex from the source.
+	 *
+	 * @param vertex
+	 * @return the distance, or null if the vertex was not reached
+	 * @throws IllegalArgumentException
+	 *             if the vertex is not in the graph
+	 */
+	public Integer getDistance(V vertex) {
+		return isReachable(vertex) ? distance[indexOf(vertex)] : null;
+	}
+
+	/**
+	 * Returns the vertex before this one on the path from the source.
+	 *
+	 * @param vertex
+	 * @return the predecessor, or null for the source and for vertices that were
+	 *         not reached
+	 * @throws IllegalArgumentException
+	 *             if the vertex is not in the graph
+	 */
+	public V getPredecessor(V vertex) {
+		int v = indexOf(vertex);
+		if (v >= predecessor.length || predecessor[v] == -1) {
+			return null;
+		}
+		return index.vertexAt(predecessor[v]);
+	}
+
+	/**
+	 * Returns the path from the source to a vertex along the tree.
+	 *
+	 * @param vertex
+	 * @return the path, beginning with the source and ending with vertex, or an
+	 *         empty list if the vertex was not reached
+	 * @throws IllegalArgumentException
+	 *             if the vertex is not in the graph
+	 */
+	public List<V> getPath(V vertex) {
+		List<V> path = new ArrayList<V>();
+		if (!isReachable(vertex)) {
+			return path;
+		}
+		for (int v = indexOf(vertex); v != -1; v = predecessor[v]) {
+			path.add(index.vertexAt(v));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * @return the distance of every reached vertex, keyed by vertex
+	 */
+	public Map<V, Integer> getDistanceMap() {
+		Map<V, Integer> map = new HashMap<V, Integer>();
+		for (int v = 0; v < distance.length; v++) {
+			if (distance[v] != UNREACHED) {
+				map.put(index.vertexAt(v), distance[v]);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * @return number of vertices the search reached, including the source
+	 */
+	public int getReachedCount() {
+		int count = 0;
+		for (int d : distance) {
+			if (d != UNREACHED) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return number of vertex slots in the tree's arrays
+	 */
+	int size() {
+		return distance.length;
+	}
+
+	private int indexOf(V vertex) {
+		int v = index.indexOf(vertex);
+		if (v < 0) {
+			throw new IllegalArgumentException();
+		}
+		return v;
+	}
+}
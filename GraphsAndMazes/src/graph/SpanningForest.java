@@ -0,0 +1,92 @@
+package graph;
+
+/**
+ * <P>
+ * A minimum spanning forest of a WeightedGraph, as returned by kruskalMST,
+ * primMST and boruvkaMST: one minimum spanning tree per connected component,
+ * treating every edge as undirected.
+ * </P>
+ *
+ * <P>
+ * The edges are numbered from 0 to getEdgeCount() - 1, in the order the
+ * algorithm chose them.
+ * </P>
+ *
+ * @param <V>
+ */
+public class SpanningForest<V> {
+
+	private final VertexIndex<V> index;
+	private final int vertexCount;
+	private final int[] from, to, weight;
+	private final long totalWeight;
+
+	/**
+	 * @param index
+	 *            translation from vertex indices to vertices
+	 * @param vertexCount
+	 *            number of vertices in the original graph
+	 * @param from
+	 *            one end of each edge, by vertex index
+	 * @param to
+	 *            the other end of each edge, by vertex index
+	 * @param weight
+	 *            weight of each edge
+	 */
+	SpanningForest(VertexIndex<V> index, int vertexCount, int[] from, int[] to, int[] weight) {
+		this.index = index;
+		this.vertexCount = vertexCount;
+		this.from = from;
+		this.to = to;
+		this.weight = weight;
+		long total = 0;
+		for (int w : weight) {
+			total += w;
+		}
+		totalWeight = total;
+	}
+
+	/**
+	 * @return number of edges in the forest
+	 */
+	public int getEdgeCount() {
+		return from.length;
+	}
+
+	/**
+	 * @return sum of the weights of all edges in the forest
+	 */
+	public long getTotalWeight() {
+		return totalWeight;
+	}
+
+	public V getFrom(int edge) {
+		return index.vertexAt(from[edge]);
+	}
+
+	public V getTo(int edge) {
+		return index.vertexAt(to[edge]);
+	}
+
+	public int getWeight(int edge) {
+		return weight[edge];
+	}
+
+	/**
+	 * Returns the forest as a graph of its own, holding every vertex of the
+	 * original graph and every forest edge in both directions.
+	 *
+	 * @return a new WeightedGraph holding the forest
+	 */
+	public WeightedGraph<V> toGraph() {
+		WeightedGraph<V> graph = new WeightedGraph<V>();
+		for (int v = 0; v < vertexCount; v++) {
+			graph.addVertex(index.vertexAt(v));
+		}
+		for (int e = 0; e < from.length; e++) {
+			graph.addEdge(getFrom(e), getTo(e), weight[e]);
+			graph.addEdge(getTo(e), getFrom(e), weight[e]);
+		}
+		return graph;
+	}
+}
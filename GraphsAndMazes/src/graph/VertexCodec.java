@@ -0,0 +1,84 @@
+package graph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import maze.Juncture;
+
+/**
+ * <P>
+ * Converts vertices to and from bytes, for the vertex table of a graph file
+ * written by WeightedGraph.save and opened with MappedGraph.open.
+ * </P>
+ *
+ * <P>
+ * The encoding must be deterministic: equal vertices must always be written
+ * as the same bytes, because a MappedGraph finds a vertex by encoding it and
+ * comparing the bytes with the table. An encoded vertex may not be longer
+ * than MAX_LENGTH bytes.
+ * </P>
+ *
+ * @param <V>
+ */
+public interface VertexCodec<V> {
+
+	/**
+	 * Longest encoding of a single vertex, in bytes.
+	 */
+	int MAX_LENGTH = 65536;
+
+	/**
+	 * Codec for Integer vertices, as four bytes.
+	 */
+	VertexCodec<Integer> INTEGERS = new VertexCodec<Integer>() {
+
+		@Override
+		public void write(Integer vertex, DataOutput out) throws IOException {
+			out.writeInt(vertex);
+		}
+
+		@Override
+		public Integer read(DataInput in) throws IOException {
+			return in.readInt();
+		}
+	};
+
+	/**
+	 * Codec for String vertices, in modified UTF-8.
+	 */
+	VertexCodec<String> STRINGS = new VertexCodec<String>() {
+
+		@Override
+		public void write(String vertex, DataOutput out) throws IOException {
+			out.writeUTF(vertex);
+		}
+
+		@Override
+		public String read(DataInput in) throws IOException {
+			return in.readUTF();
+		}
+	};
+
+	/**
+	 * Codec for the Juncture vertices of a MazeGraph, as x then y.
+	 */
+	VertexCodec<Juncture> JUNCTURES = new VertexCodec<Juncture>() {
+
+		@Override
+		public void write(Juncture vertex, DataOutput out) throws IOException {
+			out.writeInt(vertex.getX());
+			out.writeInt(vertex.getY());
+		}
+
+		@Override
+		public Juncture read(DataInput in) throws IOException {
+			int x = in.readInt();
+			return new Juncture(x, in.readInt());
+		}
+	};
+
+	void write(V vertex, DataOutput out) throws IOException;
+
+	V read(DataInput in) throws IOException;
+}
@@ -0,0 +1,17 @@
+package graph;
+
+/**
+ * Maps the vertices of an indexed graph to the indices its primitive arrays
+ * use, and back.
+ *
+ * @param <V>
+ */
+interface VertexIndex<V> {
+
+	/**
+	 * @return the index of the vertex, or -1 if it is not in the graph
+	 */
+	int indexOf(V vertex);
+
+	V vertexAt(int index);
+}
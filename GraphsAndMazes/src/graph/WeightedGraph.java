@@ -1,17 +1,20 @@
 package graph;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * <P>
@@ -46,6 +49,68 @@ public class WeightedGraph<V> {
 	 */
 	private Map<V, Map<V, Integer>> myGraph;
 
+	/*
+	 * Incoming edges of every vertex, built on demand by the bidirectional
+	 * searches and discarded whenever the graph changes. Same object as myGraph
+	 * when every edge has a matching reverse edge of equal weight.
+	 */
+	private Map<V, Map<V, Integer>> reverseGraph;
+
+	/*
+	 * Every vertex gets a stable index when it is added, so that shortest-path
+	 * searches can keep their state in int arrays.
+	 */
+	private Map<V, Integer> vertexIndex;
+	private List<V> vertexList;
+
+	/*
+	 * Bumped by every change to the vertices or edges, so that results computed
+	 * earlier can tell whether they are stale.
+	 */
+	private long version;
+
+	/*
+	 * CSR copy of the graph used by the array-based traversals. It shares
+	 * vertexIndex and vertexList, and is only kept while the graph stays
+	 * unchanged between two requests for it (see snapshot). The three fields
+	 * are guarded by snapshotLock, since queries that only read the graph, such
+	 * as isReachable and shortestPaths, may request the copy from several
+	 * threads at once.
+	 */
+	private final Object snapshotLock = new Object();
+	private CompactGraph<V> snapshot;
+	private long snapshotVersion = -1;
+	private long lastSnapshotRequest = -1;
+
+	/*
+	 * Component labels for isReachable, kept up to date by addVertex, addEdge
+	 * and removeEdge once the first query has built them.
+	 */
+	private final ReachabilityIndex reachability = new ReachabilityIndex();
+
+	/*
+	 * The vertex indexing, as seen by ShortestPathTree results.
+	 */
+	private final VertexIndex<V> indexView = new VertexIndex<V>() {
+
+		@Override
+		public int indexOf(V vertex) {
+			Integer i = vertexIndex.get(vertex);
+			return i == null ? -1 : i;
+		}
+
+		@Override
+		public V vertexAt(int index) {
+			return vertexList.get(index);
+		}
+	};
+
+	/*
+	 * One reusable Dijkstra workspace per thread, so concurrent searches on this
+	 * graph neither share state nor allocate per-vertex objects.
+	 */
+	private final ThreadLocal<DijkstraWorkspace> workspaces = new ThreadLocal<DijkstraWorkspace>();
+
 	/*
 	 * Collection of observers.
 	 */
@@ -58,6 +123,8 @@ public class WeightedGraph<V> {
 	public WeightedGraph() {
 		myGraph = new HashMap<V, Map<V, Integer>>();
 		observerList = new HashSet<GraphAlgorithmObserver<V>>();
+		vertexIndex = new HashMap<V, Integer>();
+		vertexList = new ArrayList<V>();
 	}
 
 	/**
@@ -83,8 +150,35 @@ public class WeightedGraph<V> {
 		if (myGraph.containsKey(vertex)) {
 			throw new IllegalArgumentException();
 		}
-		Map<V, Integer> nullMap = new HashMap<V, Integer>();
+		Map<V, Integer> nullMap = newNeighborMap();
 		myGraph.put(vertex, nullMap);
+		vertexIndex.put(vertex, vertexList.size());
+		vertexList.add(vertex);
+		reverseGraph = null;
+		version++;
+		reachability.vertexAdded();
+	}
+
+	/**
+	 * Creates the map that holds the outgoing edges of a new vertex. The
+	 * searches examine the neighbors of a vertex in the iteration order of this
+	 * map.
+	 * 
+	 * @return an empty neighbor to weight map
+	 */
+	Map<V, Integer> newNeighborMap() {
+		return new HashMap<V, Integer>();
+	}
+
+	/**
+	 * Returns the modification counter of this graph. It changes whenever a
+	 * vertex is added or an edge is added, changed or removed, so two equal
+	 * values mean the graph has not changed in between.
+	 * 
+	 * @return the current version of the graph
+	 */
+	public long getVersion() {
+		return version;
 	}
 
 	/**
@@ -137,6 +231,9 @@ public class WeightedGraph<V> {
 		}
 		Map<V, Integer> fromMap = myGraph.get(from);
 		fromMap.put(to, weight);
+		reverseGraph = null;
+		version++;
+		reachability.edgeAdded(vertexIndex.get(from), vertexIndex.get(to), myGraph.get(to).containsKey(from));
 	}
 
 	/**
@@ -167,6 +264,334 @@ public class WeightedGraph<V> {
 		return fromMap.get(to);
 	}
 
+	/**
+	 * <P>
+	 * Remove the edge from one vertex to another, if there is one. The vertices
+	 * themselves stay in the graph.
+	 * </P>
+	 * 
+	 * @param from
+	 *            the vertex the edge leads from
+	 * @param to
+	 *            the vertex the edge leads to
+	 * @return the weight of the removed edge, or null if there was no such edge
+	 * @throws IllegalArgumentException
+	 *             if either of the vertices specified are not in the graph.
+	 */
+	public Integer removeEdge(V from, V to) {
+		if (!myGraph.containsKey(from) || !myGraph.containsKey(to)) {
+			throw new IllegalArgumentException();
+		}
+		Integer weight = myGraph.get(from).remove(to);
+		if (weight != null) {
+			reverseGraph = null;
+			version++;
+			reachability.edgeRemoved();
+		}
+		return weight;
+	}
+
+	/**
+	 * <P>
+	 * Computes the shortest paths from source to every vertex and returns them
+	 * as a DynamicShortestPathTree. Edges added, reweighted or removed through
+	 * the tree are applied to this graph, and the tree repairs only the part of
+	 * itself that the change affects. Changes made to this graph directly make
+	 * the tree rebuild itself the next time it is used.
+	 * </P>
+	 * 
+	 * @param source
+	 *            vertex the tree is rooted at
+	 * @return shortest-path tree from source
+	 * @throws IllegalArgumentException
+	 *             if source is not in the graph
+	 */
+	public DynamicShortestPathTree<V> dynamicShortestPathTree(V source) {
+		if (!myGraph.containsKey(source)) {
+			throw new IllegalArgumentException();
+		}
+		return new DynamicShortestPathTree<V>(this, source);
+	}
+
+	/*
+	 * Package-private views for the other graph classes.
+	 */
+
+	Map<V, Integer> edgesFrom(V vertex) {
+		return myGraph.get(vertex);
+	}
+
+	int indexOf(V vertex) {
+		return vertexIndex.get(vertex);
+	}
+
+	V vertexAt(int index) {
+		return vertexList.get(index);
+	}
+
+	int vertexCount() {
+		return vertexList.size();
+	}
+
+	/**
+	 * <P>
+	 * Returns a CompactGraph holding the vertices and edges currently in this
+	 * graph, stored as primitive compressed sparse row arrays.
+	 * </P>
+	 * 
+	 * <P>
+	 * The copy is immutable: later changes to this graph are not reflected in it,
+	 * and observers must be registered with the CompactGraph itself.
+	 * </P>
+	 * 
+	 * @return a frozen CSR copy of this graph
+	 */
+	public CompactGraph<V> toCompactGraph() {
+		return new CompactGraph<V>(myGraph, vertexList);
+	}
+
+	/**
+	 * <P>
+	 * Tells whether there is a path from start to end, without searching the
+	 * graph in the common cases.
+	 * </P>
+	 * 
+	 * <P>
+	 * The first call labels every vertex with its component (connected
+	 * components if every edge has a matching reverse edge, as in a MazeGraph,
+	 * strongly connected components otherwise). The labels are kept up to date
+	 * as vertices and edges are added, so later calls take O(1) for symmetric
+	 * graphs, and O(1) for directed graphs unless the answer depends on edges
+	 * between components. Removing an edge, or adding one that may join
+	 * strongly connected components, makes the next call relabel the graph; so
+	 * does a call made on a symmetric graph while some edge is still waiting
+	 * for its reverse to be added.
+	 * </P>
+	 * 
+	 * @param start
+	 * @param end
+	 * @return true if end can be reached from start
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph
+	 */
+	public boolean isReachable(V start, V end) {
+		if (!myGraph.containsKey(start) || !myGraph.containsKey(end)) {
+			throw new IllegalArgumentException();
+		}
+		synchronized (reachability) {
+			refreshReachability();
+			return reachability.reachable(vertexIndex.get(start), vertexIndex.get(end));
+		}
+	}
+
+	/**
+	 * Returns the component label of a vertex: two vertices have the same label
+	 * exactly when each can be reached from the other. Labels are only
+	 * meaningful until the graph next changes.
+	 * 
+	 * @param vertex
+	 * @return the label of the (strongly) connected component of vertex
+	 * @throws IllegalArgumentException
+	 *             if the vertex is not in the graph
+	 */
+	public int componentOf(V vertex) {
+		if (!myGraph.containsKey(vertex)) {
+			throw new IllegalArgumentException();
+		}
+		synchronized (reachability) {
+			refreshReachability();
+			return reachability.component(vertexIndex.get(vertex));
+		}
+	}
+
+	/**
+	 * @return number of times isReachable or componentOf had to relabel the
+	 *         whole graph
+	 */
+	public long getReachabilityRebuildCount() {
+		synchronized (reachability) {
+			return reachability.getRebuildCount();
+		}
+	}
+
+	/**
+	 * Returns a minimum spanning forest of this graph, found with Kruskal's
+	 * algorithm. Edges are treated as undirected; when both directions of an
+	 * edge are present, the cheaper one is used.
+	 * 
+	 * @return one minimum spanning tree per connected component
+	 */
+	public SpanningForest<V> kruskalMST() {
+		return MinimumSpanningTrees.kruskal(snapshot(true), indexView);
+	}
+
+	/**
+	 * Returns a minimum spanning forest of this graph, found with Prim's
+	 * algorithm. Edges are treated as undirected, as in kruskalMST.
+	 * 
+	 * @return one minimum spanning tree per connected component
+	 */
+	public SpanningForest<V> primMST() {
+		return MinimumSpanningTrees.prim(snapshot(true), indexView);
+	}
+
+	/**
+	 * Returns a minimum spanning forest of this graph, found with Boruvka's
+	 * algorithm running on the common ForkJoinPool. Edges are treated as
+	 * undirected, as in kruskalMST.
+	 * 
+	 * @return one minimum spanning tree per connected component
+	 */
+	public SpanningForest<V> boruvkaMST() {
+		return boruvkaMST(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Returns a minimum spanning forest of this graph, found with Boruvka's
+	 * algorithm. Each round scans the edges and relabels the vertices in
+	 * parallel on the given pool.
+	 * 
+	 * @param pool
+	 *            pool to run on
+	 * @return one minimum spanning tree per connected component
+	 */
+	public SpanningForest<V> boruvkaMST(ForkJoinPool pool) {
+		return MinimumSpanningTrees.boruvka(snapshot(true), indexView, pool);
+	}
+
+	/**
+	 * <P>
+	 * Returns the lowest path cost between every ordered pair of vertices in a
+	 * region, counting only paths that stay inside the region. Computed with
+	 * Floyd-Warshall, O(n^3) for a region of n vertices, with the rows of each
+	 * round updated in parallel on the given pool. Meant for small, dense
+	 * regions; see allPairsDijkstra for sparse ones.
+	 * </P>
+	 * 
+	 * @param region
+	 *            distinct vertices of this graph
+	 * @param pool
+	 *            pool to run on
+	 * @return the costs between every pair of vertices of the region
+	 * @throws IllegalArgumentException
+	 *             if a vertex is not in the graph or appears twice
+	 */
+	public DistanceMatrix<V> floydWarshall(Collection<V> region, ForkJoinPool pool) {
+		return region(region).floydWarshall(pool);
+	}
+
+	/**
+	 * <P>
+	 * Returns the same costs as floydWarshall, computed with one Dijkstra search
+	 * per vertex of the region, O(n m log n) for n vertices and m edges. The
+	 * searches run in parallel on the given pool.
+	 * </P>
+	 * 
+	 * @param region
+	 *            distinct vertices of this graph
+	 * @param pool
+	 *            pool to run on
+	 * @return the costs between every pair of vertices of the region
+	 * @throws IllegalArgumentException
+	 *             if a vertex is not in the graph or appears twice
+	 */
+	public DistanceMatrix<V> allPairsDijkstra(Collection<V> region, ForkJoinPool pool) {
+		return region(region).repeatedDijkstra(pool);
+	}
+
+	private AllPairs<V> region(Collection<V> region) {
+		Set<V> distinct = new HashSet<V>();
+		for (V vertex : region) {
+			if (!myGraph.containsKey(vertex) || !distinct.add(vertex)) {
+				throw new IllegalArgumentException();
+			}
+		}
+		return new AllPairs<V>(new ArrayList<V>(region), myGraph);
+	}
+
+	private void refreshReachability() {
+		if (reachability.isStale()) {
+			reachability.rebuild(snapshot(true), hasSymmetricEdges());
+		}
+	}
+
+	/*
+	 * True if every edge has a reverse edge. Weights are ignored: they do not
+	 * matter to reachability.
+	 */
+	private boolean hasSymmetricEdges() {
+		for (Map.Entry<V, Map<V, Integer>> entry : myGraph.entrySet()) {
+			for (V to : entry.getValue().keySet()) {
+				if (!myGraph.get(to).containsKey(entry.getKey())) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns a CSR copy of this graph. The copy is cached only once the graph
+	 * has been left unchanged between two requests, so a graph that is edited
+	 * between every query does not keep a second, stale copy of itself.
+	 * 
+	 * @param required
+	 *            whether the caller needs the copy even if it would not be kept;
+	 *            if false, null is returned instead of building a throwaway copy
+	 */
+	private CompactGraph<V> snapshot(boolean required) {
+		synchronized (snapshotLock) {
+			if (snapshot != null && snapshotVersion == version) {
+				return snapshot;
+			}
+			snapshot = null;
+			boolean stable = lastSnapshotRequest == version;
+			lastSnapshotRequest = version;
+			if (!stable && !required) {
+				return null;
+			}
+			CompactGraph<V> compact = new CompactGraph<V>(myGraph, vertexList, vertexIndex);
+			if (stable) {
+				snapshot = compact;
+				snapshotVersion = version;
+			}
+			return compact;
+		}
+	}
+
+	/**
+	 * <P>
+	 * Writes the vertices and edges currently in this graph to a compact binary
+	 * file, which MappedGraph.open can map into memory and query without
+	 * loading it. The edges are stored as CSR arrays, the vertices through the
+	 * given codec (VertexCodec.JUNCTURES for a MazeGraph).
+	 * </P>
+	 * 
+	 * @param file
+	 *            the file to create or overwrite
+	 * @param codec
+	 *            how to encode each vertex
+	 * @throws IOException
+	 */
+	public void save(Path file, VertexCodec<V> codec) throws IOException {
+		MappedGraph.write(snapshot(true), file, codec);
+	}
+
+	/**
+	 * <P>
+	 * Preprocesses the vertices and edges currently in this graph into a
+	 * ContractionHierarchy, which answers point-to-point shortest-path queries
+	 * much faster than DoDijsktra. Preprocessing is expensive, so the result is
+	 * meant to be built once for a graph that no longer changes, and can be saved
+	 * and loaded with ContractionHierarchy.save and load.
+	 * </P>
+	 * 
+	 * @return a contraction hierarchy for this graph
+	 */
+	public ContractionHierarchy<V> toContractionHierarchy() {
+		return new ContractionHierarchy<V>(myGraph);
+	}
+
 	/**
 	 * <P>
 	 * This method performs a Breadth-First-Search on the graph. The search begins
@@ -190,41 +615,50 @@ public class WeightedGraph<V> {
 	 * the method should terminate immediately, without processing further vertices.
 	 * </P>
 	 * 
+	 * <P>
+	 * Once the graph has gone unchanged between two searches, they run over the
+	 * same cached CSR copy of the graph as DoDFS, so no vertex is hashed.
+	 * Otherwise the search walks the adjacency maps directly rather than copying
+	 * a graph that is about to change again. Either way visited vertices are
+	 * tracked with generation stamps kept per thread, so nothing the size of the
+	 * graph is allocated per call.
+	 * </P>
+	 * 
 	 * @param start
 	 *            vertex where search begins
 	 * @param end
 	 *            the algorithm terminates just after this vertex is visited
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph, in which case no
+	 *             observer is notified
 	 */
 	public void DoBFS(V start, V end) {
-		for (GraphAlgorithmObserver<V> o : observerList) {
-			o.notifyBFSHasBegun();
-		}
-		Set<V> visitedSet = new HashSet<V>();
-		Queue<V> queue = new ArrayDeque<V>();
-		queue.add(start);
-		while (!queue.isEmpty()) {
-			V curVertex = queue.poll();
-			if (!visitedSet.contains(curVertex)) {
-				Set<V> curSet = myGraph.get(curVertex).keySet();
-				visitedSet.add(curVertex);
-				for (GraphAlgorithmObserver<V> o : observerList) {
-					o.notifyVisit(curVertex);
-				}
-				for (V key : curSet) {
-					if (!visitedSet.contains(key)) {
-						queue.add(key);
-					}
-				}
-			}
-			if (curVertex.equals(end)) {
-				for (GraphAlgorithmObserver<V> o : observerList) {
-					o.notifySearchIsOver();
-				}
-				return;
-			}
+		CompactGraph<V> compact = snapshot(false);
+		if (compact != null) {
+			compact.breadthFirst(start, end, observerList);
+		} else {
+			mapBreadthFirst(start, end, observerList, null);
 		}
 	}
 
+	/**
+	 * <P>
+	 * Performs a parallel, level-synchronous Breadth-First-Search, run by
+	 * CompactGraph.DoParallelBFS over a CSR copy of the graph, cached as for
+	 * DoBFS. Each level is reported to this graph's observers through
+	 * notifyLevelVisited.
+	 * </P>
+	 * 
+	 * @param start
+	 *            vertex where search begins
+	 * @param end
+	 *            the algorithm terminates just after the level holding this
+	 *            vertex is visited
+	 */
+	public void DoParallelBFS(V start, V end) {
+		snapshot(true).parallelBreadthFirst(start, end, observerList);
+	}
+
 	/**
 	 * <P>
 	 * This method performs a Depth-First-Search on the graph. The search begins at
@@ -248,38 +682,28 @@ public class WeightedGraph<V> {
 	 * the method should terminate immediately, without visiting further vertices.
 	 * </P>
 	 * 
+	 * <P>
+	 * Once the graph has gone unchanged between two searches, they run over a
+	 * cached CSR copy of the graph with an int stack of (vertex, next edge)
+	 * frames, so each vertex is visited exactly once and the search uses O(V)
+	 * memory however many edges there are. Otherwise the search walks the
+	 * adjacency maps directly, in the same order.
+	 * </P>
+	 * 
 	 * @param start
 	 *            vertex where search begins
 	 * @param end
 	 *            the algorithm terminates just after this vertex is visited
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph, in which case no
+	 *             observer is notified
 	 */
 	public void DoDFS(V start, V end) {
-		for (GraphAlgorithmObserver<V> o : observerList) {
-			o.notifyDFSHasBegun();
-		}
-		Set<V> visitedSet = new HashSet<V>();
-		Stack<V> stack = new Stack<V>();
-		stack.add(start);
-		while (!stack.isEmpty()) {
-			V curVertex = stack.pop();
-			if (!visitedSet.contains(curVertex)) {
-				Set<V> curSet = myGraph.get(curVertex).keySet();
-				visitedSet.add(curVertex);
-				for (GraphAlgorithmObserver<V> o : observerList) {
-					o.notifyVisit(curVertex);
-				}
-				for (V key : curSet) {
-					if (!visitedSet.contains(key)) {
-						stack.add(key);
-					}
-				}
-			}
-			if (curVertex.equals(end)) {
-				for (GraphAlgorithmObserver<V> o : observerList) {
-					o.notifySearchIsOver();
-				}
-				return;
-			}
+		CompactGraph<V> compact = snapshot(false);
+		if (compact != null) {
+			compact.depthFirst(start, end, observerList);
+		} else {
+			mapDepthFirst(start, end, observerList, null);
 		}
 	}
 
@@ -321,146 +745,780 @@ public class WeightedGraph<V> {
 	 * @param end
 	 *            special vertex used as the end of the path reported to observers
 	 *            via the notifyDijkstraIsOver method.
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph, in which case no
+	 *             observer is notified
 	 */
 
 	public void DoDijsktra(V start, V end) {
+		if (!myGraph.containsKey(start) || !myGraph.containsKey(end)) {
+			throw new IllegalArgumentException();
+		}
 		for (GraphAlgorithmObserver<V> o : observerList) {
 			o.notifyDijkstraHasBegun();
 		}
-		BFT(start, new GraphAlgorithmObserver<V>() {
+		search(start, end, null);
+	}
 
-			@Override
-			public void notifyDFSHasBegun() {
+	/**
+	 * <P>
+	 * Perform an A* search from the "start" vertex to the "end" vertex, guided by
+	 * the heuristic.
+	 * </P>
+	 * 
+	 * <P>
+	 * The observers are notified exactly as they are by DoDijsktra, except that
+	 * the search stops as soon as the "end" vertex has been added to the finished
+	 * set, so only the vertices that look promising according to the heuristic
+	 * are finished. The cost passed to notifyDijkstraVertexFinished is the true
+	 * cost of the best path to that vertex, not including the estimate.
+	 * </P>
+	 * 
+	 * <P>
+	 * The heuristic must be consistent (see Heuristic) for the reported path to
+	 * be optimal.
+	 * </P>
+	 * 
+	 * @param start
+	 *            vertex where algorithm will start
+	 * @param end
+	 *            the algorithm terminates once this vertex is finished
+	 * @param heuristic
+	 *            estimate of the remaining cost from a vertex to end
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph, in which case no
+	 *             observer is notified
+	 */
+	public void DoAStar(V start, V end, Heuristic<V> heuristic) {
+		if (!myGraph.containsKey(start) || !myGraph.containsKey(end)) {
+			throw new IllegalArgumentException();
+		}
+		for (GraphAlgorithmObserver<V> o : observerList) {
+			o.notifyDijkstraHasBegun();
+		}
+		search(start, end, heuristic);
+	}
 
+	/**
+	 * <P>
+	 * Perform a bidirectional Breadth-First-Search: one search moves forward from
+	 * "start" along edges, another moves backward from "end" against them, and
+	 * the search ends as soon as the two meet.
+	 * </P>
+	 * 
+	 * <P>
+	 * Observers are notified as in DoBFS. Each round, the side with the smaller
+	 * frontier processes one whole level; every vertex it processes is reported
+	 * through notifyVisit, and notifySearchIsOver is called once a vertex has been
+	 * reached by both sides. If the searches never meet, notifySearchIsOver is not
+	 * called, just as DoBFS does not call it when "end" is unreachable.
+	 * </P>
+	 * 
+	 * @param start
+	 *            vertex where the forward search begins
+	 * @param end
+	 *            vertex where the backward search begins
+	 */
+	public void DoBidirectionalBFS(V start, V end) {
+		for (GraphAlgorithmObserver<V> o : observerList) {
+			o.notifyBFSHasBegun();
+		}
+		Map<V, Map<V, Integer>> reverse = reverseAdjacency();
+		Set<V> forwardSeen = new HashSet<V>();
+		Set<V> backwardSeen = new HashSet<V>();
+		Queue<V> forward = new ArrayDeque<V>();
+		Queue<V> backward = new ArrayDeque<V>();
+		forward.add(start);
+		forwardSeen.add(start);
+		backward.add(end);
+		backwardSeen.add(end);
+		boolean met = start.equals(end);
+		while (!met && !forward.isEmpty() && !backward.isEmpty()) {
+			if (forward.size() <= backward.size()) {
+				met = expandLevel(forward, forwardSeen, backwardSeen, myGraph);
+			} else {
+				met = expandLevel(backward, backwardSeen, forwardSeen, reverse);
 			}
+		}
+		if (met) {
+			if (start.equals(end)) {
+				for (GraphAlgorithmObserver<V> o : observerList) {
+					o.notifyVisit(start);
+				}
+			}
+			for (GraphAlgorithmObserver<V> o : observerList) {
+				o.notifySearchIsOver();
+			}
+		}
+	}
 
-			@Override
-			public void notifyBFSHasBegun() {
+	/**
+	 * Process one BFS level from the queue, visiting each vertex and queueing
+	 * its unseen neighbors. Returns true, leaving the rest of the level
+	 * unprocessed, as soon as a neighbor already seen by the other side is found.
+	 */
+	private boolean expandLevel(Queue<V> queue, Set<V> seen, Set<V> otherSeen, Map<V, Map<V, Integer>> adjacency) {
+		for (int remaining = queue.size(); remaining > 0; remaining--) {
+			V curVertex = queue.poll();
+			for (GraphAlgorithmObserver<V> o : observerList) {
+				o.notifyVisit(curVertex);
+			}
+			for (V key : adjacency.get(curVertex).keySet()) {
+				if (otherSeen.contains(key)) {
+					return true;
+				}
+				if (seen.add(key)) {
+					queue.add(key);
+				}
+			}
+		}
+		return false;
+	}
 
+	/**
+	 * <P>
+	 * Perform a bidirectional Dijkstra search: one search moves forward from
+	 * "start", another moves backward from "end" against the edges, and the
+	 * search stops once no path through the unfinished vertices can beat the
+	 * best path found so far.
+	 * </P>
+	 * 
+	 * <P>
+	 * Observers are notified with the Dijkstra callbacks. Each vertex finished by
+	 * the forward search is reported with its cost from "start"; each vertex
+	 * finished by the backward search is reported with its cost to "end". The
+	 * side whose next vertex is closer goes first. notifyDijkstraIsOver receives
+	 * the lowest cost path from "start" to "end", or an empty list if there is
+	 * none.
+	 * </P>
+	 * 
+	 * @param start
+	 *            vertex where the forward search begins
+	 * @param end
+	 *            vertex where the backward search begins
+	 */
+	public void DoBidirectionalDijkstra(V start, V end) {
+		for (GraphAlgorithmObserver<V> o : observerList) {
+			o.notifyDijkstraHasBegun();
+		}
+		Frontier forward = new Frontier(myGraph, start);
+		Frontier backward = new Frontier(reverseAdjacency(), end);
+		long best = Long.MAX_VALUE;
+		V meet = null;
+		if (start.equals(end)) {
+			best = 0;
+			meet = start;
+			forward.finish();
+		}
+		while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+			int forwardTop = forward.heap.priorityOf(forward.heap.peek());
+			int backwardTop = backward.heap.priorityOf(backward.heap.peek());
+			if ((long) forwardTop + backwardTop >= best) {
+				break;
+			}
+			Frontier side = forwardTop <= backwardTop ? forward : backward;
+			Frontier other = side == forward ? backward : forward;
+			V u = side.finish();
+			int du = side.distance.get(u);
+			for (Map.Entry<V, Integer> edge : side.adjacency.get(u).entrySet()) {
+				V v = edge.getKey();
+				if (side.finished.contains(v)) {
+					continue;
+				}
+				side.relax(u, v, du + edge.getValue());
+				Integer dv = other.distance.get(v);
+				if (dv != null && (long) du + edge.getValue() + dv < best) {
+					best = (long) du + edge.getValue() + dv;
+					meet = v;
+				}
 			}
+		}
 
-			@Override
-			public void notifyVisit(V vertexBeingVisited) {
-				table.put(vertexBeingVisited, new Info<V>(vertexBeingVisited));
+		List<V> path = new ArrayList<V>();
+		if (meet != null) {
+			for (V v = meet; v != null; v = forward.predecessor.get(v)) {
+				path.add(v);
+			}
+			Collections.reverse(path);
+			for (V v = backward.predecessor.get(meet); v != null; v = backward.predecessor.get(v)) {
+				path.add(v);
 			}
+		}
+		for (GraphAlgorithmObserver<V> o : observerList) {
+			o.notifyDijkstraIsOver(path);
+		}
+	}
+
+	/*
+	 * State of one direction of a bidirectional Dijkstra search.
+	 */
+	private class Frontier {
+		Map<V, Map<V, Integer>> adjacency;
+		Map<V, Integer> distance = new HashMap<V, Integer>();
+		Map<V, V> predecessor = new HashMap<V, V>();
+		Set<V> finished = new HashSet<V>();
+		IndexedMinHeap heap = new IndexedMinHeap(16);
+		Map<V, Integer> index = new HashMap<V, Integer>();
+		List<V> byIndex = new ArrayList<V>();
 
-			@Override
-			public void notifySearchIsOver() {
+		Frontier(Map<V, Map<V, Integer>> adjacency, V source) {
+			this.adjacency = adjacency;
+			relax(null, source, 0);
+		}
 
+		void relax(V from, V to, int newDistance) {
+			Integer old = distance.get(to);
+			if (old != null && old <= newDistance) {
+				return;
+			}
+			Integer i = index.get(to);
+			if (i == null) {
+				i = byIndex.size();
+				index.put(to, i);
+				byIndex.add(to);
+			}
+			distance.put(to, newDistance);
+			if (from != null) {
+				predecessor.put(to, from);
 			}
+			heap.insertOrDecrease(i, newDistance);
+		}
 
-			@Override
-			public void notifyDijkstraHasBegun() {
+		V finish() {
+			V v = byIndex.get(heap.poll());
+			finished.add(v);
+			for (GraphAlgorithmObserver<V> o : observerList) {
+				o.notifyDijkstraVertexFinished(v, distance.get(v));
+			}
+			return v;
+		}
+	}
 
+	/**
+	 * Returns the incoming-edge index of this graph, building it if the graph
+	 * has changed since it was last built. When every edge has a matching reverse
+	 * edge of the same weight the graph is its own reverse, and no copy is made.
+	 */
+	private Map<V, Map<V, Integer>> reverseAdjacency() {
+		if (reverseGraph != null) {
+			return reverseGraph;
+		}
+		boolean symmetric = true;
+		for (Map.Entry<V, Map<V, Integer>> entry : myGraph.entrySet()) {
+			for (Map.Entry<V, Integer> edge : entry.getValue().entrySet()) {
+				if (!edge.getValue().equals(myGraph.get(edge.getKey()).get(entry.getKey()))) {
+					symmetric = false;
+					break;
+				}
+			}
+			if (!symmetric) {
+				break;
 			}
+		}
+		if (symmetric) {
+			reverseGraph = myGraph;
+			return reverseGraph;
+		}
+		Map<V, Map<V, Integer>> reverse = new HashMap<V, Map<V, Integer>>();
+		for (V vertex : myGraph.keySet()) {
+			reverse.put(vertex, new HashMap<V, Integer>());
+		}
+		for (Map.Entry<V, Map<V, Integer>> entry : myGraph.entrySet()) {
+			for (Map.Entry<V, Integer> edge : entry.getValue().entrySet()) {
+				reverse.get(edge.getKey()).put(entry.getKey(), edge.getValue());
+			}
+		}
+		reverseGraph = reverse;
+		return reverseGraph;
+	}
 
-			@Override
-			public void notifyDijkstraVertexFinished(V vertexAddedToFinishedSet, Integer costOfPath) {
+	/**
+	 * Shared body of DoDijsktra and DoAStar: runs the search with observer
+	 * notifications and reports the path to end.
+	 */
+	private void search(V start, V end, Heuristic<V> heuristic) {
+		DijkstraWorkspace ws = acquireWorkspace();
+		List<V> path;
+		try {
+			shortestPathTree(ws, start, end, heuristic, heuristic != null, true);
+			path = pathTo(ws, end);
+		} finally {
+			ws.inUse = false;
+		}
+		for (GraphAlgorithmObserver<V> o : observerList) {
+			o.notifyDijkstraIsOver(path);
+		}
+	}
+
+	/**
+	 * Returns this thread's workspace, reset for a search over this graph. If
+	 * the thread is already using it (an observer started another search from a
+	 * callback), a fresh workspace is returned instead. The caller must clear
+	 * inUse when done.
+	 */
+	private DijkstraWorkspace acquireWorkspace() {
+		return DijkstraWorkspace.acquire(workspaces, vertexList.size());
+	}
 
+	/**
+	 * Runs Dijkstra's algorithm (or A*, when heuristic is not null) from start,
+	 * leaving distances and predecessors in the workspace. With a heuristic,
+	 * vertices are ordered by distance plus estimate. The search stops once end
+	 * is finished if stopAtEnd is true, and otherwise finishes every reachable
+	 * vertex. Observers are told about finished vertices only if notify is true
+	 * and there are any. The only shared state
+	 * read is the graph itself, so concurrent calls with different workspaces
+	 * are safe as long as the graph is not being changed.
+	 */
+	private void shortestPathTree(DijkstraWorkspace ws, V start, V end, Heuristic<V> heuristic, boolean stopAtEnd,
+			boolean notify) {
+		notify = notify && !observerList.isEmpty();
+		int s = vertexIndex.get(start);
+		ws.reach(s, 0, -1);
+		ws.heap.insert(s, 0);
+		while (!ws.heap.isEmpty()) {
+			int cur = ws.heap.poll();
+			ws.finish(cur);
+			V current = vertexList.get(cur);
+			int curDistance = ws.distance[cur];
+			if (notify) {
+				for (GraphAlgorithmObserver<V> o : observerList) {
+					o.notifyDijkstraVertexFinished(current, curDistance);
+				}
+			}
+			if (stopAtEnd && current.equals(end)) {
+				break;
 			}
 
-			@Override
-			public void notifyDijkstraIsOver(List<V> path) {
+			for (Map.Entry<V, Integer> edge : myGraph.get(current).entrySet()) {
+				int next = vertexIndex.get(edge.getKey());
+				int newDistance = curDistance + edge.getValue();
+				if (!ws.isReached(next)) {
+					ws.reach(next, newDistance, cur);
+				} else if (ws.isFinished(next) || newDistance >= ws.distance[next]) {
+					continue;
+				} else {
+					ws.distance[next] = newDistance;
+					ws.predecessor[next] = cur;
+				}
+				int priority = newDistance;
+				if (heuristic != null) {
+					priority += heuristic.estimate(edge.getKey(), end);
+				}
+				ws.heap.insertOrDecrease(next, priority);
+			}
+		}
+	}
 
+	/**
+	 * Follows predecessors back from end. Returns the path from the search's
+	 * start to end, or an empty list if end was not finished.
+	 */
+	private List<V> pathTo(DijkstraWorkspace ws, V end) {
+		List<V> path = new ArrayList<V>();
+		int last = vertexIndex.get(end);
+		if (ws.isFinished(last)) {
+			for (int v = last; v != -1; v = ws.predecessor[v]) {
+				path.add(vertexList.get(v));
 			}
-		});
+			Collections.reverse(path);
+		}
+		return path;
+	}
 
-		Info<V> info = table.get(start);
-		info.distance = 0;
-		Map<V, Info<V>> finishedMap = new HashMap<V, Info<V>>();
-		LinkedList<Info<V>> lst = new LinkedList<Info<V>>();
-		lst.add(info);
-		do {
-			info = lst.removeFirst();
-			finishedMap.put(info.current, info);
-			table.remove(info.current);
-			for (GraphAlgorithmObserver<V> o : observerList) {
-				o.notifyDijkstraVertexFinished(info.current, info.distance);
-			}
-
-			Map<V, Integer> vertex = myGraph.get(info.current);
-			for (V v : vertex.keySet()) {
-				Info<V> curr = table.get(v);
-				if (curr != null) {
-					int preDistance = info.distance;
-					int curDistance = curr.distance;
-					if (preDistance + vertex.get(v) < curDistance) {
-						curDistance = preDistance + vertex.get(v);
-						curr.predecessor = info.current;
-						lst.remove(curr);
-						ListInsert(lst, curr);
+	/**
+	 * <P>
+	 * Returns the vertices in the order DoBFS would visit them, without notifying
+	 * observers. The search keeps its state in this thread's reusable workspace,
+	 * so apart from the returned list it allocates almost nothing.
+	 * </P>
+	 * 
+	 * @param start
+	 *            vertex where search begins
+	 * @param end
+	 *            the search stops just after this vertex is visited
+	 * @return the visited vertices, in visiting order
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph
+	 */
+	public List<V> bfsVisitOrder(V start, V end) {
+		List<V> order = new ArrayList<V>();
+		mapBreadthFirst(start, end, Collections.<GraphAlgorithmObserver<V>> emptySet(), order);
+		return order;
+	}
+
+	/**
+	 * Breadth-First-Search over the adjacency maps, notifying the given
+	 * observers and appending each visited vertex to order unless it is null.
+	 * Vertices are visited in the same order as CompactGraph.breadthFirst.
+	 */
+	private void mapBreadthFirst(V start, V end, Collection<GraphAlgorithmObserver<V>> observers, List<V> order) {
+		if (!myGraph.containsKey(start) || !myGraph.containsKey(end)) {
+			throw new IllegalArgumentException();
+		}
+		for (GraphAlgorithmObserver<V> o : observers) {
+			o.notifyBFSHasBegun();
+		}
+		DijkstraWorkspace ws = acquireWorkspace();
+		try {
+			int[] queue = ws.scratch(vertexList.size());
+			int head = 0, tail = 0;
+			int s = vertexIndex.get(start);
+			ws.finish(s);
+			queue[tail++] = s;
+			while (head < tail) {
+				V curVertex = vertexList.get(queue[head++]);
+				visit(curVertex, observers, order);
+				if (curVertex.equals(end)) {
+					for (GraphAlgorithmObserver<V> o : observers) {
+						o.notifySearchIsOver();
+					}
+					return;
+				}
+				for (V key : myGraph.get(curVertex).keySet()) {
+					int k = vertexIndex.get(key);
+					if (!ws.isFinished(k)) {
+						ws.finish(k);
+						queue[tail++] = k;
 					}
 				}
 			}
-		} while (lst.size() > 0);
+		} finally {
+			ws.inUse = false;
+		}
+	}
 
-		List<V> path = new ArrayList<V>();
-		V v = end;
-		do {
-			path.add(0, v);
-			v = finishedMap.get(v).predecessor;
-		} while (!v.equals(start));
-		for (GraphAlgorithmObserver<V> o : observerList) {
-			o.notifyDijkstraIsOver(path);
+	private static <V> void visit(V vertex, Collection<GraphAlgorithmObserver<V>> observers, List<V> order) {
+		for (GraphAlgorithmObserver<V> o : observers) {
+			o.notifyVisit(vertex);
+		}
+		if (order != null) {
+			order.add(vertex);
 		}
 	}
 
-	private Map<V, Info<V>> table = new HashMap<V, Info<V>>();
+	/**
+	 * <P>
+	 * Returns the vertices in the order DoDFS would visit them, without notifying
+	 * observers. The search keeps its state in this thread's reusable workspace,
+	 * so apart from the returned list it allocates almost nothing.
+	 * </P>
+	 * 
+	 * @param start
+	 *            vertex where search begins
+	 * @param end
+	 *            the search stops just after this vertex is visited
+	 * @return the visited vertices, in visiting order
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph
+	 */
+	public List<V> dfsVisitOrder(V start, V end) {
+		List<V> order = new ArrayList<V>();
+		mapDepthFirst(start, end, Collections.<GraphAlgorithmObserver<V>> emptySet(), order);
+		return order;
+	}
 
-	private class Info<V> {
-		V current = null;
-		V predecessor = null;
-		int distance = Integer.MAX_VALUE;
+	/**
+	 * Depth-First-Search over the adjacency maps, notifying the given observers
+	 * and appending each visited vertex to order unless it is null. Every
+	 * unvisited neighbor is pushed and visited when popped, which gives the same
+	 * order as CompactGraph.depthFirst.
+	 */
+	private void mapDepthFirst(V start, V end, Collection<GraphAlgorithmObserver<V>> observers, List<V> order) {
+		if (!myGraph.containsKey(start) || !myGraph.containsKey(end)) {
+			throw new IllegalArgumentException();
+		}
+		for (GraphAlgorithmObserver<V> o : observers) {
+			o.notifyDFSHasBegun();
+		}
+		DijkstraWorkspace ws = acquireWorkspace();
+		try {
+			int[] stack = ws.scratch(2);
+			int top = 0;
+			stack[top++] = vertexIndex.get(start);
+			while (top > 0) {
+				int cur = stack[--top];
+				if (ws.isFinished(cur)) {
+					continue;
+				}
+				ws.finish(cur);
+				V curVertex = vertexList.get(cur);
+				visit(curVertex, observers, order);
+				if (curVertex.equals(end)) {
+					for (GraphAlgorithmObserver<V> o : observers) {
+						o.notifySearchIsOver();
+					}
+					return;
+				}
+				for (V key : myGraph.get(curVertex).keySet()) {
+					int k = vertexIndex.get(key);
+					if (!ws.isFinished(k)) {
+						if (top == stack.length) {
+							stack = ws.scratch(top + 1);
+						}
+						stack[top++] = k;
+					}
+				}
+			}
+		} finally {
+			ws.inUse = false;
+		}
+	}
 
-		public Info(V v) {
-			current = v;
+	/**
+	 * <P>
+	 * Returns the lowest cost path from start to end, without notifying
+	 * observers. Unlike DoDijsktra, the search stops as soon as end is finished.
+	 * </P>
+	 * 
+	 * @param start
+	 *            vertex where the path begins
+	 * @param end
+	 *            vertex where the path ends
+	 * @return the path, beginning with start and ending with end, or an empty
+	 *         list if end cannot be reached
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph
+	 */
+	public List<V> dijkstraPath(V start, V end) {
+		if (!myGraph.containsKey(start) || !myGraph.containsKey(end)) {
+			throw new IllegalArgumentException();
+		}
+		DijkstraWorkspace ws = acquireWorkspace();
+		try {
+			shortestPathTree(ws, start, end, null, true, false);
+			return pathTo(ws, end);
+		} finally {
+			ws.inUse = false;
 		}
 	}
 
 	/**
-	 * A helper method that traverse through the whole map.
+	 * <P>
+	 * Returns the cost of the lowest cost path from start to end, without
+	 * notifying observers. The search stops as soon as end is finished.
+	 * </P>
 	 * 
 	 * @param start
-	 * @param ob
+	 *            vertex where the path begins
+	 * @param end
+	 *            vertex where the path ends
+	 * @return total weight of the path, or null if end cannot be reached
+	 * @throws IllegalArgumentException
+	 *             if either vertex is not in the graph
 	 */
-	private void BFT(V start, GraphAlgorithmObserver<V> ob) {
-		Set<V> visitedSet = new HashSet<V>();
-		Queue<V> queue = new ArrayDeque<V>();
-		queue.add(start);
-		while (!queue.isEmpty()) {
-			V curVertex = queue.poll();
-			if (!visitedSet.contains(curVertex)) {
-				visitedSet.add(curVertex);
-				ob.notifyVisit(curVertex);
+	public Integer dijkstraDistance(V start, V end) {
+		if (!myGraph.containsKey(start) || !myGraph.containsKey(end)) {
+			throw new IllegalArgumentException();
+		}
+		DijkstraWorkspace ws = acquireWorkspace();
+		try {
+			shortestPathTree(ws, start, end, null, true, false);
+			int e = vertexIndex.get(end);
+			return ws.isFinished(e) ? ws.distance[e] : null;
+		} finally {
+			ws.inUse = false;
+		}
+	}
+
+	/**
+	 * <P>
+	 * Runs a Breadth-First-Search from start over everything reachable, without
+	 * notifying observers, and returns the BFS tree. The distance of each vertex
+	 * in the tree is its number of edges from start.
+	 * </P>
+	 * 
+	 * @param start
+	 *            vertex where search begins
+	 * @return the BFS tree rooted at start
+	 * @throws IllegalArgumentException
+	 *             if start is not in the graph
+	 */
+	public ShortestPathTree<V> bfsTree(V start) {
+		if (!myGraph.containsKey(start)) {
+			throw new IllegalArgumentException();
+		}
+		DijkstraWorkspace ws = acquireWorkspace();
+		try {
+			int[] queue = ws.scratch(vertexList.size());
+			int head = 0, tail = 0;
+			int s = vertexIndex.get(start);
+			ws.reach(s, 0, -1);
+			ws.finish(s);
+			queue[tail++] = s;
+			while (head < tail) {
+				int cur = queue[head++];
+				for (V key : myGraph.get(vertexList.get(cur)).keySet()) {
+					int k = vertexIndex.get(key);
+					if (!ws.isFinished(k)) {
+						ws.reach(k, ws.distance[cur] + 1, cur);
+						ws.finish(k);
+						queue[tail++] = k;
+					}
+				}
 			}
-			Set<V> curSet = myGraph.get(curVertex).keySet();
-			for (V key : curSet) {
-				if (!visitedSet.contains(key)) {
-					queue.add(key);
+			return treeFrom(ws, start);
+		} finally {
+			ws.inUse = false;
+		}
+	}
+
+	/**
+	 * <P>
+	 * Runs a Depth-First-Search from start over everything reachable, visiting
+	 * vertices in the same order as DoDFS but without notifying observers, and
+	 * returns the DFS tree. The distance of each vertex in the tree is its depth
+	 * in the DFS tree.
+	 * </P>
+	 * 
+	 * @param start
+	 *            vertex where search begins
+	 * @return the DFS tree rooted at start
+	 * @throws IllegalArgumentException
+	 *             if start is not in the graph
+	 */
+	public ShortestPathTree<V> dfsTree(V start) {
+		if (!myGraph.containsKey(start)) {
+			throw new IllegalArgumentException();
+		}
+		DijkstraWorkspace ws = acquireWorkspace();
+		try {
+			/* the stack holds (vertex, parent) pairs */
+			int[] stack = ws.scratch(2);
+			int top = 0;
+			stack[top++] = vertexIndex.get(start);
+			stack[top++] = -1;
+			while (top > 0) {
+				int parent = stack[--top];
+				int cur = stack[--top];
+				if (!ws.isFinished(cur)) {
+					ws.reach(cur, parent == -1 ? 0 : ws.distance[parent] + 1, parent);
+					ws.finish(cur);
+					for (V key : myGraph.get(vertexList.get(cur)).keySet()) {
+						int k = vertexIndex.get(key);
+						if (!ws.isFinished(k)) {
+							if (top + 2 > stack.length) {
+								stack = ws.scratch(top + 2);
+							}
+							stack[top++] = k;
+							stack[top++] = cur;
+						}
+					}
 				}
 			}
+			return treeFrom(ws, start);
+		} finally {
+			ws.inUse = false;
 		}
 	}
 
 	/**
-	 * Insert the Info to the Linked List according to the distance in an increasing
-	 * order.
+	 * <P>
+	 * Runs Dijkstra's algorithm from start over everything reachable, without
+	 * notifying observers, and returns the shortest-path tree. The tree answers
+	 * the cost of and path to any vertex without another search.
+	 * </P>
 	 * 
-	 * @param lst
-	 * @param value
+	 * @param start
+	 *            vertex where algorithm will start
+	 * @return the shortest-path tree rooted at start
+	 * @throws IllegalArgumentException
+	 *             if start is not in the graph
 	 */
-	private void ListInsert(LinkedList<Info<V>> lst, Info<V> value) {
-		ListIterator<Info<V>> li = lst.listIterator();
-		while (li.hasNext()) {
-			Info<V> cur = li.next();
-			if (value.distance <= cur.distance) {
-				li.previous();
-				li.add(value);
-				return;
+	public ShortestPathTree<V> dijkstraTree(V start) {
+		if (!myGraph.containsKey(start)) {
+			throw new IllegalArgumentException();
+		}
+		DijkstraWorkspace ws = acquireWorkspace();
+		try {
+			shortestPathTree(ws, start, null, null, false, false);
+			return treeFrom(ws, start);
+		} finally {
+			ws.inUse = false;
+		}
+	}
+
+	/**
+	 * Copy the finished vertices of a workspace into a ShortestPathTree.
+	 */
+	private ShortestPathTree<V> treeFrom(DijkstraWorkspace ws, V start) {
+		int n = vertexList.size();
+		int[] distance = new int[n];
+		int[] predecessor = new int[n];
+		for (int v = 0; v < n; v++) {
+			if (ws.isFinished(v)) {
+				distance[v] = ws.distance[v];
+				predecessor[v] = ws.predecessor[v];
+			} else {
+				distance[v] = Integer.MAX_VALUE;
+				predecessor[v] = -1;
+			}
+		}
+		return new ShortestPathTree<V>(start, distance, predecessor, indexView);
+	}
+
+	/**
+	 * <P>
+	 * Answers a batch of shortest-path queries. The queries are grouped by start
+	 * vertex, one shortest-path tree is computed per distinct start, and every
+	 * query with that start is answered from its tree. Trees for different start
+	 * vertices are computed in parallel on the common ForkJoinPool.
+	 * </P>
+	 * 
+	 * <P>
+	 * Observers are not notified. The graph must not be changed while the batch
+	 * is running.
+	 * </P>
+	 * 
+	 * @param queries
+	 *            (start, end) pairs to answer
+	 * @return one path per query, in the same order as the queries. Each path
+	 *         runs from start to end and has the lowest total cost, or is empty
+	 *         if end cannot be reached from start.
+	 * @throws IllegalArgumentException
+	 *             if any start or end vertex is not in the graph
+	 */
+	public List<List<V>> shortestPaths(List<PathQuery<V>> queries) {
+		final Map<V, List<Integer>> bySource = new LinkedHashMap<V, List<Integer>>();
+		for (int i = 0; i < queries.size(); i++) {
+			PathQuery<V> query = queries.get(i);
+			if (!myGraph.containsKey(query.getStart()) || !myGraph.containsKey(query.getEnd())) {
+				throw new IllegalArgumentException();
+			}
+			List<Integer> group = bySource.get(query.getStart());
+			if (group == null) {
+				group = new ArrayList<Integer>();
+				bySource.put(query.getStart(), group);
 			}
+			group.add(i);
 		}
 
-		lst.add(value);
+		final List<List<V>> results = new ArrayList<List<V>>(Collections.<List<V>>nCopies(queries.size(), null));
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+		for (final Map.Entry<V, List<Integer>> group : bySource.entrySet()) {
+			tasks.add(ForkJoinPool.commonPool().submit(new Runnable() {
+
+				@Override
+				public void run() {
+					DijkstraWorkspace ws = acquireWorkspace();
+					try {
+						shortestPathTree(ws, group.getKey(), null, null, false, false);
+						for (int i : group.getValue()) {
+							List<V> path = pathTo(ws, queries.get(i).getEnd());
+							synchronized (results) {
+								results.set(i, path);
+							}
+						}
+					} finally {
+						ws.inUse = false;
+					}
+				}
+			}));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+		return results;
 	}
 
-}
\ No newline at end of file
+}
\ No newline at end of file
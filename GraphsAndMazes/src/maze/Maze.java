@@ -1,8 +1,23 @@
 package maze;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * <P>This class represents a randomly generated Maze, 
@@ -23,13 +38,31 @@ import java.util.Random;
  */
 public class Maze {
 
-	private static Random random = new Random();
+	private static final int MAGIC = 0x4d415a45;  // "MAZE"
+	private static final int FORMAT_VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+	
+	/* 
+	 * The weights are one buffer with a byte per juncture, so a maze may 
+	 * have at most this many junctures; the walls then take a quarter as 
+	 * many bytes, so each region of a file maps as a single buffer.
+	 */
+	private static final long MAX_JUNCTURES = Integer.MAX_VALUE;
+	
+	private static final Random random = new Random();
 	private int width, height;  // wall dimensions, not junctures
+	
+	/* 
+	 * On the heap for a generated maze, or mapped from the file for an 
+	 * opened one; only read with absolute gets, so reads are thread-safe.
+	 */
+	private LongBuffer walls;  // two bits per post: wall to its right, wall below it
+	private ByteBuffer weights;  // per juncture: weight below (high nibble), to the right (low nibble)
+	
+	/* Only used while the maze is generated; see pack() */
 	private int[][] wallIndex;
 	private boolean[][] wallToRight;
 	private boolean[][] wallDown;
-	private int [][] horizontalWeights;
-	private int [][] verticalWeights;
 	
 	/**
 	 * Construct random maze.
@@ -52,33 +85,276 @@ public class Maze {
 	 * @param mazeWidth
 	 * @param sparcity
 	 * @param randomSeed
+	 * @throws IllegalArgumentException if the maze would have more than 
+	 * Integer.MAX_VALUE junctures
 	 */
 	public Maze(int mazeHeight, int mazeWidth, int sparcity, long randomSeed) {
-		random = new Random(randomSeed);
-		width = mazeWidth + 1;
-		height = mazeHeight + 1;
-		int currWall = 1;
-		horizontalWeights = new int[height - 2][width - 1];
-		verticalWeights = new int[height - 1][width - 2];
-		for (int i = 0; i < height - 2; i++) {
-			for (int j = 0; j < width - 1; j++) {
-				horizontalWeights[i][j] = random.nextInt(9) + 1;
+		SplittableRandom random = new SplittableRandom(randomSeed);
+		allocate(mazeHeight, mazeWidth);
+		fillWeights(random, 0, height - 1, 0, width - 1);
+		carve(random, 1, height - 1, 1, width - 1);
+		
+		/* Remove some walls if sparcity is > 0 */
+		if (sparcity > 0) {
+			removeWalls(random, (double) width * height * sparcity/50.0, 1, height - 1, 1, width - 1);
+		}
+		pack();
+	}
+	
+	/**
+	 * <P>This constructor builds the maze in square tiles of tileSize by 
+	 * tileSize junctures (smaller along the right and bottom edges), 
+	 * generating the tiles in parallel on the common fork-join pool.
+	 * Each tile is walled in and carved on its own, with its own random
+	 * number generator split from the seed, and then neighboring tiles 
+	 * are joined by opening one gap in the wall between them, along a 
+	 * random spanning tree of the tiles.  Before any walls are removed
+	 * for sparcity, there is still exactly one path from any juncture 
+	 * to any other juncture.</P>
+	 * 
+	 * <P>The same seed and tile size give the same maze every time, no
+	 * matter how many threads carve it, but a different maze than the 
+	 * other constructors.  Long walls do not cross tile borders, so 
+	 * smaller tiles give a more visibly blocky maze.</P>
+	 * 
+	 * @param mazeHeight
+	 * @param mazeWidth
+	 * @param sparcity
+	 * @param randomSeed
+	 * @param tileSize width and height of a tile, in junctures
+	 * @throws IllegalArgumentException if tileSize is less than 1, or if 
+	 * the maze would have more than Integer.MAX_VALUE junctures
+	 */
+	public Maze(int mazeHeight, int mazeWidth, final int sparcity, long randomSeed, int tileSize) {
+		if (tileSize < 1) {
+			throw new IllegalArgumentException("tile size " + tileSize);
+		}
+		allocate(mazeHeight, mazeWidth);
+		int tileRows = (mazeHeight + tileSize - 1) / tileSize;
+		int tileCols = (mazeWidth + tileSize - 1) / tileSize;
+		
+		/* Wall in every tile; tile borders belong to the outer wall */
+		for (int r = tileSize; r < mazeHeight; r += tileSize) {
+			for (int c = 0; c < width; c++) {
+				wallIndex[r][c] = 1;
+				wallToRight[r][c] = c < width - 1;
 			}
 		}
-		for (int i = 0; i < height - 1; i++) {
-			for (int j = 0; j < width - 2; j++) {
-				verticalWeights[i][j] = random.nextInt(9) + 1;
+		for (int c = tileSize; c < mazeWidth; c += tileSize) {
+			for (int r = 0; r < height; r++) {
+				wallIndex[r][c] = 1;
+				wallDown[r][c] = r < height - 1;
+			}
+		}
+		
+		/* 
+		 * Carve the tiles.  A tile only writes its own interior posts, and 
+		 * only removes walls next to the posts in its top and left borders
+		 * and interior, so no two tiles touch the same array element.
+		 */
+		SplittableRandom seeds = new SplittableRandom(randomSeed);
+		SplittableRandom seamRandom = seeds.split();
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(tileRows * tileCols);
+		for (int ty = 0; ty < tileRows; ty++) {
+			for (int tx = 0; tx < tileCols; tx++) {
+				final SplittableRandom random = seeds.split();
+				final int y0 = ty * tileSize, y1 = Math.min(y0 + tileSize, mazeHeight);
+				final int x0 = tx * tileSize, x1 = Math.min(x0 + tileSize, mazeWidth);
+				tasks.add(pool.submit(new Runnable() {
 
+					@Override
+					public void run() {
+						fillWeights(random, y0, y1, x0, x1);
+						carve(random, y0 + 1, y1, x0 + 1, x1);
+						if (sparcity > 0) {
+							removeWalls(random, (double) (y1 - y0) * (x1 - x0) * sparcity/50.0, 
+									Math.max(y0, 1), y1, Math.max(x0, 1), x1);
+						}
+					}
+				}));
 			}
 		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+		
+		/* 
+		 * Seam pass: randomized Kruskal over the grid of tiles.  Each tile
+		 * edge it keeps opens one gap in the border between the two tiles,
+		 * so the tiles' spanning trees join into one.
+		 */
+		int[] seams = new int[tileRows * tileCols * 2];
+		int count = 0;
+		for (int t = 0; t < tileRows * tileCols; t++) {
+			if (t % tileCols < tileCols - 1) {
+				seams[count++] = 2 * t;  // to the tile on the right
+			}
+			if (t / tileCols < tileRows - 1) {
+				seams[count++] = 2 * t + 1;  // to the tile below
+			}
+		}
+		shuffle(seams, count, seamRandom);
+		int[] parent = new int[tileRows * tileCols];
+		for (int t = 0; t < parent.length; t++) {
+			parent[t] = t;
+		}
+		for (int i = 0; i < count; i++) {
+			int t = seams[i] / 2;
+			boolean right = seams[i] % 2 == 0;
+			int a = root(parent, t);
+			int b = root(parent, right ? t + 1 : t + tileCols);
+			if (a == b) {
+				continue;
+			}
+			parent[a] = b;
+			int y0 = t / tileCols * tileSize, x0 = t % tileCols * tileSize;
+			if (right) {
+				int span = Math.min(tileSize, mazeHeight - y0);
+				wallDown[y0 + seamRandom.nextInt(span)][x0 + tileSize] = false;
+			} else {
+				int span = Math.min(tileSize, mazeWidth - x0);
+				wallToRight[y0 + tileSize][x0 + seamRandom.nextInt(span)] = false;
+			}
+		}
+		pack();
+	}
+	
+	private Maze() {
+	}
+	
+	/**
+	 * <P>Open a maze file written by save.  The walls and weights are
+	 * mapped rather than read, so opening takes the same time for any 
+	 * size of maze; the accessors read straight from the mapping, and the 
+	 * operating system loads the pages they touch.</P>
+	 * 
+	 * <P>The file holds a header of four big-endian ints (magic number, 
+	 * format version, maze width and maze height).  Then come the walls,
+	 * as big-endian longs holding two bits per post, for the posts in 
+	 * row-major order: the wall to the right of the post, then the wall
+	 * below it, counting from the low bit of each long.  Last is one byte
+	 * per juncture, in row-major order, with the weight below the 
+	 * juncture in the high nibble and the weight to its right in the low
+	 * nibble.</P>
+	 * 
+	 * @param path the maze file
+	 * @return a maze that reads from the file
+	 * @throws IOException if the file cannot be read, is not a maze file, 
+	 * or holds a maze of more than Integer.MAX_VALUE junctures
+	 */
+	public static Maze open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			while (header.hasRemaining() && channel.read(header) != -1) {
+				// keep reading
+			}
+			if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+				throw new IOException("not a maze file");
+			}
+			if (header.getInt(4) != FORMAT_VERSION) {
+				throw new IOException("unsupported maze file version " + header.getInt(4));
+			}
+			int mazeWidth = header.getInt(8);
+			int mazeHeight = header.getInt(12);
+			if (mazeWidth < 1 || mazeHeight < 1) {
+				throw new IOException("corrupt maze file");
+			}
+			long weightBytes = (long) mazeWidth * mazeHeight;
+			if (weightBytes > MAX_JUNCTURES) {
+				throw new IOException("maze of " + mazeHeight + " by " + mazeWidth
+						+ " junctures is too large to open");
+			}
+			Maze maze = new Maze();
+			maze.width = mazeWidth + 1;
+			maze.height = mazeHeight + 1;
+			long wallBytes = 8 * maze.wordCount();
+			if (HEADER_SIZE + wallBytes + weightBytes != channel.size()) {
+				throw new IOException("truncated maze file");
+			}
+			maze.walls = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, wallBytes).asLongBuffer();
+			maze.weights = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + wallBytes, weightBytes);
+			return maze;
+		} finally {
+			channel.close();  // the mappings stay valid
+		}
+	}
+	
+	/**
+	 * Write this maze to a file that open can map.  The walls and weights
+	 * are streamed out as they are stored, so saving needs no extra memory 
+	 * and works the same for a maze that was itself opened from a file.
+	 * 
+	 * <P>The maze is written to a temporary file in the same directory,
+	 * which then replaces path.  A maze opened from path can therefore be
+	 * saved back to it: it keeps reading the old file, which was never
+	 * truncated under its mapping.</P>
+	 * 
+	 * @param path the file to write; replaced if it exists
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(Path path) throws IOException {
+		Path target = path.toAbsolutePath();
+		Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			write(temporary);
+			try {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+	
+	private void write(Path path) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(width - 1);
+			out.writeInt(height - 1);
+			for (int i = 0; i < walls.limit(); i++) {
+				out.writeLong(walls.get(i));
+			}
+			ByteBuffer source = weights.duplicate();
+			source.clear();
+			byte[] chunk = new byte[1 << 16];
+			while (source.hasRemaining()) {
+				int length = Math.min(chunk.length, source.remaining());
+				source.get(chunk, 0, length);
+				out.write(chunk, 0, length);
+			}
+		} finally {
+			out.close();
+		}
+	}
+	
+	private long wordCount() {
+		return (2L * width * height + 63) / 64;
+	}
+	
+	/*
+	 * Allocate the arrays and build the wall surrounding the maze.
+	 */
+	private void allocate(int mazeHeight, int mazeWidth) {
+		if ((long) mazeHeight * mazeWidth > MAX_JUNCTURES) {
+			throw new IllegalArgumentException("maze of " + mazeHeight + " by " + mazeWidth
+					+ " junctures is too large; at most " + MAX_JUNCTURES + " junctures are supported");
+		}
+		width = mazeWidth + 1;
+		height = mazeHeight + 1;
+		weights = ByteBuffer.allocate((height - 1) * (width - 1));
 		wallIndex = new int[height][width];
 		for (int i = 0; i < width; i++) {
-			wallIndex[0][i] = currWall;
-			wallIndex[height - 1][i] = currWall;
+			wallIndex[0][i] = 1;
+			wallIndex[height - 1][i] = 1;
 		}
 		for (int i = 0; i < height; i++) {
-			wallIndex[i][0] = currWall;
-			wallIndex[i][width - 1] = currWall;
+			wallIndex[i][0] = 1;
+			wallIndex[i][width - 1] = 1;
 		}
 		wallToRight = new boolean[height][width];
 		wallDown = new boolean[height][width];
@@ -90,96 +366,193 @@ public class Maze {
 			wallDown[i][0] = true;
 			wallDown[i][width - 1] = true;
 		}
-
-		/* Draw the interior walls */
-		ArrayList<Juncture> points = new ArrayList<>();
-		for (int x = 1; x < width; x++) {
-			for (int y = 1; y < height; y++) {
-				points.add(new Juncture(x, y));
+	}
+	
+	/*
+	 * Random weights below and to the right of the junctures in rows 
+	 * [y0, y1) and columns [x0, x1).
+	 */
+	private void fillWeights(SplittableRandom random, int y0, int y1, int x0, int x1) {
+		for (int y = y0; y < y1; y++) {
+			for (int x = x0; x < x1; x++) {
+				int below = y < height - 2 ? random.nextInt(9) + 1 : 0;
+				int right = x < width - 2 ? random.nextInt(9) + 1 : 0;
+				weights.put(y * (width - 1) + x, (byte) (below << 4 | right));
+			}
+		}
+	}
+	
+	/*
+	 * Draw the interior walls from the posts in rows [r0, r1) and columns 
+	 * [c0, c1), taken in random order. The posts around this region must 
+	 * already belong to a wall.
+	 */
+	private void carve(SplittableRandom random, int r0, int r1, int c0, int c1) {
+		if (r1 <= r0 || c1 <= c0) {
+			return;
+		}
+		int[] posts = new int[(r1 - r0) * (c1 - c0)];
+		int count = 0;
+		for (int x = c0; x < c1; x++) {
+			for (int y = r0; y < r1; y++) {
+				posts[count++] = y * width + x;
 			}
 		}
-		Collections.shuffle(points);
+		shuffle(posts, count, random);
 		
-		while (points.size() > 0) {
-			Juncture p = points.remove(0);
-			int row = p.getY();
-			int col = p.getX();
+		int currWall = 1;
+		for (int post : posts) {
+			int row = post / width;
+			int col = post % width;
 			if (wallIndex[row][col] == 0) {
 				currWall++;
 				wallIndex[row][col] = currWall;
-				drawFrom(row, col, currWall);
+				drawFrom(row, col, currWall, random);
 			}
 		}
-		
-		/* Remove some walls if sparcity is > 0 */
-		if (sparcity > 0) {
-			for (int i = 0; i < width * height * sparcity/50.0; i++) {
-				int r = random.nextInt(height - 2) + 1;
-				int c = random.nextInt(width - 2) + 1;
-				if (random.nextBoolean() == false) {
-					wallDown[r][c] = false;
-				} else {
-					wallToRight[r][c] = false;
+	}
+	
+	/*
+	 * Take down about count random wall segments below and to the right of
+	 * the posts in rows [r0, r1) and columns [c0, c1).
+	 */
+	private void removeWalls(SplittableRandom random, double count, int r0, int r1, int c0, int c1) {
+		if (r1 <= r0 || c1 <= c0) {
+			return;
+		}
+		for (long i = 0; i < count; i++) {
+			int r = random.nextInt(r1 - r0) + r0;
+			int c = random.nextInt(c1 - c0) + c0;
+			if (random.nextBoolean() == false) {
+				wallDown[r][c] = false;
+			} else {
+				wallToRight[r][c] = false;
+			}
+		}
+	}
+	
+	/*
+	 * Copy the finished walls into the bitset and drop the generation arrays,
+	 * row by row, so the maze keeps about 2 bits per post and a byte per
+	 * juncture: a few hundred MB for a 20000 x 20000 maze, where the arrays
+	 * take several GB.
+	 */
+	private void pack() {
+		wallIndex = null;
+		long[] bits = new long[(int) wordCount()];
+		for (int r = 0; r < height; r++) {
+			for (int c = 0; c < width; c++) {
+				long bit = 2 * ((long) r * width + c);
+				if (wallToRight[r][c]) {
+					bits[(int) (bit >>> 6)] |= 1L << bit;
+				}
+				if (wallDown[r][c]) {
+					bits[(int) (bit >>> 6)] |= 2L << bit;
 				}
 			}
+			wallToRight[r] = null;
+			wallDown[r] = null;
 		}
+		wallToRight = null;
+		wallDown = null;
+		walls = LongBuffer.wrap(bits);
+	}
+	
+	/* The wall to the right of (down == false) or below the post at (row, col) */
+	private boolean isWall(int row, int col, boolean down) {
+		long bit = 2 * ((long) row * width + col) + (down ? 1 : 0);
+		return (walls.get((int) (bit >>> 6)) & 1L << bit) != 0;
 	}
 	
-	private void drawFrom(int row, int col, int currWall) {
-		if (possibleToExtend(row, col, currWall)) {
-			while(true) {
+	private int weightBelow(int x, int y) {
+		return weights.get(y * (width - 1) + x) >> 4 & 0xf;
+	}
+	
+	private int weightToRight(int x, int y) {
+		return weights.get(y * (width - 1) + x) & 0xf;
+	}
+	
+	private static void shuffle(int[] values, int count, SplittableRandom random) {
+		for (int i = count - 1; i > 0; i--) {  // Fisher-Yates shuffle
+			int j = random.nextInt(i + 1);
+			int value = values[i];
+			values[i] = values[j];
+			values[j] = value;
+		}
+	}
+	
+	private static int root(int[] parent, int t) {
+		while (parent[t] != t) {
+			parent[t] = parent[parent[t]];
+			t = parent[t];
+		}
+		return t;
+	}
+	
+	/*
+	 * Grow wall currWall from (row, col) one random segment at a time until it
+	 * runs into another wall. This is a loop rather than a recursion, so long
+	 * walls cannot overflow the stack. When the tip is boxed in by its own wall,
+	 * growth resumes from a random earlier post of the wall, taken from trail;
+	 * posts that cannot be extended any more are dropped from trail for good,
+	 * since a post only loses free neighbors while its wall grows.
+	 */
+	private void drawFrom(int row, int col, int currWall, SplittableRandom random) {
+		int[] trail = new int[16];
+		int trailSize = 0;
+		trail[trailSize++] = row * width + col;
+		while (true) {
+			if (!possibleToExtend(row, col, currWall)) {  // no current extension possible
+				while (true) {
+					int i = random.nextInt(trailSize);
+					int post = trail[i];
+					row = post / width;
+					col = post % width;
+					if (possibleToExtend(row, col, currWall)) {
+						break;
+					}
+					trail[i] = trail[--trailSize];
+				}
+			}
+			int nextRow = row, nextCol = col;
+			while (true) {
 				int directionToTry = random.nextInt(4);
 				if (directionToTry == 0) {  // to right
-					int wallFound = wallIndex[row][col + 1];
-					if (wallFound != currWall) {
-						wallIndex[row][col + 1] = currWall;
+					if (wallIndex[row][col + 1] != currWall) {
 						wallToRight[row][col] = true;
-						if (wallFound == 0) {
-							drawFrom(row, col + 1, currWall);
-						}
-						return;
+						nextCol = col + 1;
+						break;
 					}
 				} else if (directionToTry == 1) {  // to left
-					int wallFound = wallIndex[row][col - 1];
-					if (wallFound != currWall) {
-						wallIndex[row][col - 1] = currWall;
+					if (wallIndex[row][col - 1] != currWall) {
 						wallToRight[row][col - 1] = true;
-						if (wallFound == 0) {
-							drawFrom(row, col - 1, currWall);
-						}
-						return;
+						nextCol = col - 1;
+						break;
 					}
 				} else if (directionToTry == 2) {  // up
-					int wallFound = wallIndex[row - 1][col];
-					if (wallFound != currWall) {
-						wallIndex[row - 1][col] = currWall;
+					if (wallIndex[row - 1][col] != currWall) {
 						wallDown[row - 1][col] = true;
-						if (wallFound == 0) {
-							drawFrom(row - 1, col, currWall);
-						}
-						return;
+						nextRow = row - 1;
+						break;
 					}
 				} else {  //down
-					int wallFound = wallIndex[row + 1][col];
-					if (wallFound != currWall) {
-						wallIndex[row + 1][col] = currWall;
+					if (wallIndex[row + 1][col] != currWall) {
 						wallDown[row][col] = true;
-						if (wallFound == 0) {
-							drawFrom(row + 1, col, currWall);
-						}
-						return;
+						nextRow = row + 1;
+						break;
 					}
 				}
 			}
-		} else {  // no current extension possible
-			while(true) {
-				int r = random.nextInt(height);
-				int c = random.nextInt(width);
-				if (wallIndex[r][c] == currWall && possibleToExtend(r, c, currWall)) {
-					drawFrom(r, c, currWall);
-					return;
-				}
+			if (wallIndex[nextRow][nextCol] != 0) {  // ran into another wall
+				return;
+			}
+			wallIndex[nextRow][nextCol] = currWall;
+			row = nextRow;
+			col = nextCol;
+			if (trailSize == trail.length) {
+				trail = Arrays.copyOf(trail, 2 * trailSize);
 			}
+			trail[trailSize++] = row * width + col;
 		}
 	}
 	
@@ -221,7 +594,17 @@ public class Maze {
 	 * @return true if there is a wall above this juncture
 	 */
 	public boolean isWallAbove(Juncture juncture) {
-		return wallToRight[juncture.getY()][juncture.getX()];
+		return isWallAbove(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns true if there is a wall above the juncture at (x, y),
+	 * false otherwise.
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall above this juncture
+	 */
+	public boolean isWallAbove(int x, int y) {
+		return isWall(y, x, false);
 	}
 
 	/** Returns true if there is a wall below the given juncture,
@@ -230,7 +613,17 @@ public class Maze {
 	 * @return true if there is a wall below this juncture
 	 */
 	public boolean isWallBelow(Juncture juncture) {
-		return wallToRight[juncture.getY()+ 1][juncture.getX()];
+		return isWallBelow(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns true if there is a wall below the juncture at (x, y),
+	 * false otherwise.
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall below this juncture
+	 */
+	public boolean isWallBelow(int x, int y) {
+		return isWall(y + 1, x, false);
 	}
 
 	/** Returns true if there is a wall to the left of the 
@@ -239,7 +632,17 @@ public class Maze {
 	 * @return true if there is a wall to the left of this juncture
 	 */
 	public boolean isWallToLeft(Juncture juncture) {
-		return wallDown[juncture.getY()][juncture.getX()];
+		return isWallToLeft(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns true if there is a wall to the left of the 
+	 * juncture at (x, y), false otherwise.
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall to the left of this juncture
+	 */
+	public boolean isWallToLeft(int x, int y) {
+		return isWall(y, x, true);
 	}
 
 	/** Returns true if there is a wall to the right of the 
@@ -248,7 +651,17 @@ public class Maze {
 	 * @return true if there is a wall to the right of this juncture
 	 */
 	public boolean isWallToRight(Juncture juncture) {
-		return wallDown[juncture.getY()][juncture.getX() + 1];
+		return isWallToRight(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns true if there is a wall to the right of the 
+	 * juncture at (x, y), false otherwise.
+	 * @param x
+	 * @param y
+	 * @return true if there is a wall to the right of this juncture
+	 */
+	public boolean isWallToRight(int x, int y) {
+		return isWall(y, x + 1, true);
 	}
 
 	/** Returns the weight between this juncture and the one above.
@@ -257,7 +670,17 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightAbove(Juncture juncture) {
-		return horizontalWeights[juncture.getY() - 1][juncture.getX()];
+		return getWeightAbove(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the one above.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightAbove(int x, int y) {
+		return weightBelow(x, y - 1);
 	}
 	
 	/** Returns the weight between this juncture and the one below.
@@ -266,7 +689,17 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightBelow(Juncture juncture) {
-		return horizontalWeights[juncture.getY()][juncture.getX()];
+		return getWeightBelow(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the one below.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightBelow(int x, int y) {
+		return weightBelow(x, y);
 	}
 
 	/** Returns the weight between this juncture and the one to its
@@ -276,7 +709,18 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightToLeft(Juncture juncture) {
-		return verticalWeights[juncture.getY()][juncture.getX() - 1];
+		return getWeightToLeft(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the one to
+	 * its left.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightToLeft(int x, int y) {
+		return weightToRight(x - 1, y);
 	}
 	
 	/** Returns the weight between this juncture and the one to its
@@ -286,6 +730,17 @@ public class Maze {
 	 * @return a positive integer
 	 */
 	public int getWeightToRight(Juncture juncture) {
-		return	verticalWeights[juncture.getY()][juncture.getX()];
+		return getWeightToRight(juncture.getX(), juncture.getY());
+	}
+
+	/** Returns the weight between the juncture at (x, y) and the one to
+	 * its right.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return a positive integer
+	 */
+	public int getWeightToRight(int x, int y) {
+		return weightToRight(x, y);
 	}
 }
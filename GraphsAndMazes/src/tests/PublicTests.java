@@ -3,7 +3,39 @@ package tests;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+
+import graph.AsyncObserver;
+import graph.CompactGraph;
+import graph.ContractionHierarchy;
+import graph.DistanceMatrix;
+import graph.DynamicShortestPathTree;
+import graph.GraphAlgorithmObserver;
+import graph.GridMazeGraph;
+import graph.Heuristic;
+import graph.MappedGraph;
+import graph.MazeGraph;
+import graph.PathQuery;
+import graph.ShortestPathCache;
+import graph.ShortestPathTree;
+import graph.SpanningForest;
+import graph.VertexCodec;
 import graph.WeightedGraph;
+import maze.Juncture;
+import maze.Maze;
 
 public class PublicTests {
 
@@ -56,4 +88,1267 @@ public class PublicTests {
 		assertTrue(graph.getWeight("B", "D") == null);
 	}
 	
-}
\ No newline at end of file
+	@Test
+	public void testDijkstraFinishOrderAndPath() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("A");
+		graph.addVertex("B");
+		graph.addVertex("C");
+		graph.addVertex("D");
+		graph.addEdge("A", "B", 1);
+		graph.addEdge("A", "C", 5);
+		graph.addEdge("B", "C", 1);
+		graph.addEdge("C", "D", 1);
+		graph.addEdge("B", "D", 7);
+		final List<String> finished = new ArrayList<String>();
+		final List<Integer> costs = new ArrayList<Integer>();
+		final List<String> path = new ArrayList<String>();
+		graph.addObserver(new GraphAlgorithmObserver<String>() {
+			public void notifyDFSHasBegun() {
+			}
+
+			public void notifyBFSHasBegun() {
+			}
+
+			public void notifyVisit(String vertexBeingVisited) {
+			}
+
+			public void notifySearchIsOver() {
+			}
+
+			public void notifyDijkstraHasBegun() {
+			}
+
+			public void notifyDijkstraVertexFinished(String vertex, Integer costOfPath) {
+				finished.add(vertex);
+				costs.add(costOfPath);
+			}
+
+			public void notifyDijkstraIsOver(List<String> p) {
+				path.addAll(p);
+			}
+		});
+		graph.DoDijsktra("A", "D");
+		assertEquals("[A, B, C, D]", finished.toString());
+		assertEquals("[0, 1, 2, 3]", costs.toString());
+		assertEquals("[A, B, C, D]", path.toString());
+	}
+	
+	@Test
+	public void testBidirectionalBFSOnDirectedGraph() {
+		Random random = new Random(5);
+		for (int trial = 0; trial < 50; trial++) {
+			WeightedGraph<Integer> graph = randomGraph(random, 30, 45);
+			Recorder<Integer> recorder = new Recorder<Integer>();
+			graph.addObserver(recorder);
+			for (int query = 0; query < 20; query++) {
+				int start = random.nextInt(30);
+				int end = random.nextInt(30);
+				recorder.clear();
+				graph.DoBidirectionalBFS(start, end);
+				boolean reachable = graph.bfsVisitOrder(start, end).contains(end);
+				assertEquals(reachable, recorder.searchOver);
+			}
+		}
+	}
+	
+	@Test
+	public void testBidirectionalDijkstraOnDirectedGraph() {
+		Random random = new Random(5);
+		for (int trial = 0; trial < 50; trial++) {
+			WeightedGraph<Integer> graph = randomGraph(random, 30, 45);
+			Recorder<Integer> recorder = new Recorder<Integer>();
+			graph.addObserver(recorder);
+			for (int query = 0; query < 20; query++) {
+				int start = random.nextInt(30);
+				int end = random.nextInt(30);
+				recorder.clear();
+				graph.DoDijsktra(start, end);
+				List<Integer> expected = new ArrayList<Integer>(recorder.path);
+				recorder.clear();
+				graph.DoBidirectionalDijkstra(start, end);
+				List<Integer> path = recorder.path;
+				assertEquals(expected.isEmpty(), path.isEmpty());
+				if (!path.isEmpty()) {
+					assertEquals(start, (int) path.get(0));
+					assertEquals(end, (int) path.get(path.size() - 1));
+					assertEquals(cost(graph, expected), cost(graph, path));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testContractionHierarchyMatchesDijkstra() {
+		Random random = new Random(9);
+		for (int trial = 0; trial < 10; trial++) {
+			WeightedGraph<Integer> graph = randomGraph(random, 40, 80);
+			Recorder<Integer> recorder = new Recorder<Integer>();
+			graph.addObserver(recorder);
+			ContractionHierarchy<Integer> hierarchy = graph.toContractionHierarchy();
+			assertEquals(40, hierarchy.getVertexCount());
+			for (int start = 0; start < 40; start++) {
+				for (int end = 0; end < 40; end++) {
+					recorder.clear();
+					graph.DoDijsktra(start, end);
+					List<Integer> path = hierarchy.shortestPath(start, end);
+					if (recorder.path.isEmpty()) {
+						assertNull(hierarchy.getDistance(start, end));
+						assertTrue(path.isEmpty());
+					} else {
+						int expected = cost(graph, recorder.path);
+						assertEquals(expected, (int) hierarchy.getDistance(start, end));
+						assertEquals(start, (int) path.get(0));
+						assertEquals(end, (int) path.get(path.size() - 1));
+						assertEquals(expected, cost(graph, path));
+					}
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testContractionHierarchySaveAndLoad() throws Exception {
+		WeightedGraph<Integer> graph = randomGraph(new Random(9), 40, 80);
+		ContractionHierarchy<Integer> hierarchy = graph.toContractionHierarchy();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		hierarchy.save(bytes, VertexCodec.INTEGERS);
+		ContractionHierarchy<Integer> loaded = ContractionHierarchy.load(new ByteArrayInputStream(bytes.toByteArray()),
+				VertexCodec.INTEGERS);
+		assertEquals(hierarchy.getVertexCount(), loaded.getVertexCount());
+		assertEquals(hierarchy.getShortcutCount(), loaded.getShortcutCount());
+		for (int start = 0; start < 40; start++) {
+			for (int end = 0; end < 40; end++) {
+				assertEquals(hierarchy.getDistance(start, end), loaded.getDistance(start, end));
+				assertEquals(hierarchy.shortestPath(start, end), loaded.shortestPath(start, end));
+			}
+		}
+	}
+	
+	@Test
+	public void testDynamicShortestPathTreeMatchesDijkstra() {
+		Random random = new Random(10);
+		for (int trial = 0; trial < 5; trial++) {
+			WeightedGraph<Integer> graph = randomGraph(random, 30, 60);
+			Recorder<Integer> recorder = new Recorder<Integer>();
+			graph.addObserver(recorder);
+			DynamicShortestPathTree<Integer> tree = graph.dynamicShortestPathTree(0);
+			for (int change = 0; change < 100; change++) {
+				int from = random.nextInt(30);
+				int to = random.nextInt(30);
+				List<Integer> treePath = tree.getPath(to);
+				if (change % 3 == 0 && treePath.size() > 1) {
+					/* make the last edge on a tree path more expensive, or remove it */
+					from = treePath.get(treePath.size() - 2);
+					if (random.nextBoolean()) {
+						tree.setEdge(from, to, graph.getWeight(from, to) + 1 + random.nextInt(9));
+					} else {
+						tree.removeEdge(from, to);
+					}
+				} else if (random.nextInt(4) == 0) {
+					tree.removeEdge(from, to);
+				} else {
+					tree.setEdge(from, to, 1 + random.nextInt(9));
+				}
+				for (int v = 0; v < 30; v++) {
+					recorder.clear();
+					graph.DoDijsktra(0, v);
+					if (recorder.path.isEmpty()) {
+						assertNull(tree.getDistance(v));
+						assertTrue(tree.getPath(v).isEmpty());
+					} else {
+						int expected = cost(graph, recorder.path);
+						List<Integer> path = tree.getPath(v);
+						assertEquals(expected, (int) tree.getDistance(v));
+						assertEquals(expected, cost(graph, path));
+						assertEquals(0, (int) path.get(0));
+						assertEquals(v, (int) path.get(path.size() - 1));
+					}
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testResultMethodsMatchObservedSearches() {
+		Random random = new Random(12);
+		for (int trial = 0; trial < 20; trial++) {
+			WeightedGraph<Integer> graph = randomGraph(random, 30, 60);
+			Recorder<Integer> recorder = new Recorder<Integer>();
+			graph.addObserver(recorder);
+			for (int query = 0; query < 30; query++) {
+				int start = random.nextInt(30);
+				int end = random.nextInt(30);
+				recorder.clear();
+				graph.DoBFS(start, end);
+				assertEquals(recorder.visits, graph.bfsVisitOrder(start, end));
+				recorder.clear();
+				graph.DoDFS(start, end);
+				assertEquals(recorder.visits, graph.dfsVisitOrder(start, end));
+				recorder.clear();
+				graph.DoDijsktra(start, end);
+				List<Integer> path = graph.dijkstraPath(start, end);
+				if (recorder.path.isEmpty()) {
+					assertTrue(path.isEmpty());
+					assertNull(graph.dijkstraDistance(start, end));
+				} else {
+					int expected = cost(graph, recorder.path);
+					assertEquals(expected, cost(graph, path));
+					assertEquals(expected, (int) graph.dijkstraDistance(start, end));
+				}
+				/* change the graph now and then, so both the cached and the uncached searches run */
+				if (query % 4 == 0) {
+					graph.addEdge(random.nextInt(30), random.nextInt(30), 1 + random.nextInt(9));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testShortestPathTrees() {
+		Random random = new Random(13);
+		for (int trial = 0; trial < 20; trial++) {
+			WeightedGraph<Integer> graph = randomGraph(random, 30, 60);
+			int source = random.nextInt(30);
+			ShortestPathTree<Integer> dijkstra = graph.dijkstraTree(source);
+			ShortestPathTree<Integer> bfs = graph.bfsTree(source);
+			ShortestPathTree<Integer> dfs = graph.dfsTree(source);
+			int reached = 0;
+			for (int v = 0; v < 30; v++) {
+				Integer distance = graph.dijkstraDistance(source, v);
+				assertEquals(distance, dijkstra.getDistance(v));
+				assertEquals(distance != null, dijkstra.isReachable(v));
+				assertEquals(distance != null, bfs.isReachable(v));
+				assertEquals(distance != null, dfs.isReachable(v));
+				if (distance == null) {
+					assertTrue(dijkstra.getPath(v).isEmpty());
+					continue;
+				}
+				reached++;
+				assertEquals((int) distance, cost(graph, dijkstra.getPath(v)));
+				assertEquals(bfs.getPath(v).size() - 1, (int) bfs.getDistance(v));
+				assertEquals(dfs.getPath(v).size() - 1, (int) dfs.getDistance(v));
+				cost(graph, bfs.getPath(v));
+				cost(graph, dfs.getPath(v));
+				/* no edge leads to a vertex more than one BFS level further down */
+				for (int w = 0; w < 30; w++) {
+					if (graph.getWeight(v, w) != null) {
+						assertTrue(bfs.getDistance(w) <= bfs.getDistance(v) + 1);
+					}
+				}
+			}
+			assertEquals(reached, dijkstra.getReachedCount());
+			assertEquals(reached, dijkstra.getDistanceMap().size());
+			assertNull(dijkstra.getPredecessor(source));
+			graph.addVertex(30);
+			graph.addEdge(source, 30, 1);
+			assertFalse(dijkstra.isReachable(30));
+			assertNull(dijkstra.getDistance(30));
+		}
+	}
+	
+	@Test
+	public void testShortestPathCacheInvalidatesOnChange() {
+		WeightedGraph<String> graph = new WeightedGraph<String>();
+		graph.addVertex("A");
+		graph.addVertex("B");
+		graph.addVertex("C");
+		graph.addEdge("A", "B", 5);
+		graph.addEdge("B", "C", 5);
+		ShortestPathCache<String> cache = new ShortestPathCache<String>(graph, 2);
+		assertEquals(10, (int) cache.getDistance("A", "C"));
+		assertEquals(5, (int) cache.getDistance("A", "B"));
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.size());
+
+		long version = graph.getVersion();
+		graph.addEdge("A", "C", 3);
+		assertTrue(graph.getVersion() > version);
+		assertEquals(3, (int) cache.getDistance("A", "C"));
+		assertEquals("[A, C]", cache.getPath("A", "C").toString());
+		assertEquals(2, cache.getMissCount());
+
+		graph.removeEdge("A", "C");
+		assertEquals(10, (int) cache.getDistance("A", "C"));
+		graph.removeEdge("B", "C");
+		assertNull(cache.getDistance("A", "C"));
+		assertTrue(cache.getPath("A", "C").isEmpty());
+	}
+	
+	@Test
+	public void testShortestPathCacheEvictsLeastRecentlyUsed() {
+		WeightedGraph<Integer> graph = randomGraph(new Random(14), 30, 60);
+		ShortestPathCache<Integer> cache = new ShortestPathCache<Integer>(graph, 2);
+		cache.getTree(0);
+		cache.getTree(1);
+		cache.getTree(0);
+		cache.getTree(2);
+		assertEquals(2, cache.size());
+		assertEquals(3, cache.getMissCount());
+		cache.getTree(0);
+		assertEquals(2, cache.getHitCount());
+		cache.getTree(1);
+		assertEquals(4, cache.getMissCount());
+		for (int v = 0; v < 30; v++) {
+			assertEquals(graph.dijkstraDistance(1, v), cache.getDistance(1, v));
+		}
+	}
+	
+	@Test
+	public void testReachabilityOnSymmetricGraph() {
+		Random random = new Random(17);
+		WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+		for (int v = 0; v < 20; v++) {
+			graph.addVertex(v);
+		}
+		for (int change = 0; change < 60; change++) {
+			int from = random.nextInt(20);
+			int to = random.nextInt(20);
+			if (change % 5 == 4) {
+				graph.removeEdge(from, to);
+				graph.removeEdge(to, from);
+			} else {
+				int weight = 1 + random.nextInt(9);
+				graph.addEdge(from, to, weight);
+				graph.addEdge(to, from, weight);
+			}
+			checkReachability(graph, 20);
+		}
+	}
+	
+	@Test
+	public void testReachabilityOnDirectedGraph() {
+		Random random = new Random(17);
+		WeightedGraph<Integer> graph = randomGraph(random, 20, 10);
+		for (int change = 0; change < 60; change++) {
+			int from = random.nextInt(20);
+			int to = random.nextInt(20);
+			if (change % 5 == 4) {
+				graph.removeEdge(from, to);
+			} else {
+				graph.addEdge(from, to, 1 + random.nextInt(9));
+			}
+			checkReachability(graph, 20);
+		}
+	}
+	
+	/*
+	 * isReachable must agree with a BFS, and componentOf must give two vertices
+	 * the same label exactly when each reaches the other.
+	 */
+	private static void checkReachability(WeightedGraph<Integer> graph, int vertexCount) {
+		for (int start = 0; start < vertexCount; start++) {
+			for (int end = 0; end < vertexCount; end++) {
+				boolean forward = graph.bfsVisitOrder(start, end).contains(end);
+				boolean backward = graph.bfsVisitOrder(end, start).contains(start);
+				assertEquals(forward, graph.isReachable(start, end));
+				assertEquals(forward && backward, graph.componentOf(start) == graph.componentOf(end));
+			}
+		}
+	}
+	
+	@Test
+	public void testMinimumSpanningForestsAgree() {
+		Random random = new Random(18);
+		for (int trial = 0; trial < 20; trial++) {
+			/* few weights, so there are many ties */
+			WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+			for (int v = 0; v < 40; v++) {
+				graph.addVertex(v);
+			}
+			for (int e = 0; e < 70; e++) {
+				graph.addEdge(random.nextInt(40), random.nextInt(40), 1 + random.nextInt(3));
+			}
+			SpanningForest<Integer> kruskal = graph.kruskalMST();
+			SpanningForest<Integer> prim = graph.primMST();
+			SpanningForest<Integer> boruvka = graph.boruvkaMST();
+			assertEquals(kruskal.getTotalWeight(), prim.getTotalWeight());
+			assertEquals(kruskal.getTotalWeight(), boruvka.getTotalWeight());
+			assertEquals(kruskal.getEdgeCount(), prim.getEdgeCount());
+			assertEquals(edgeSet(kruskal), edgeSet(boruvka));
+			assertCheapestEdges(graph, kruskal);
+			assertCheapestEdges(graph, prim);
+			assertCheapestEdges(graph, boruvka);
+		}
+	}
+	
+	@Test
+	public void testFloydWarshallMatchesDijkstra() {
+		Random random = new Random(18);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		for (int trial = 0; trial < 10; trial++) {
+			WeightedGraph<Integer> graph = randomGraph(random, 30, 70);
+			List<Integer> all = new ArrayList<Integer>();
+			for (int v = 0; v < 30; v++) {
+				all.add(v);
+			}
+			DistanceMatrix<Integer> floyd = graph.floydWarshall(all, pool);
+			for (int start = 0; start < 30; start++) {
+				for (int end = 0; end < 30; end++) {
+					assertEquals(graph.dijkstraDistance(start, end), floyd.getDistance(start, end));
+				}
+			}
+			List<Integer> region = all.subList(0, 12);
+			floyd = graph.floydWarshall(region, pool);
+			DistanceMatrix<Integer> dijkstra = graph.allPairsDijkstra(region, pool);
+			for (int start : region) {
+				for (int end : region) {
+					assertEquals(dijkstra.getDistance(start, end), floyd.getDistance(start, end));
+				}
+			}
+		}
+		pool.shutdown();
+	}
+	
+	/*
+	 * Every edge of a forest must be the cheaper direction of an edge of graph.
+	 */
+	private static void assertCheapestEdges(WeightedGraph<Integer> graph, SpanningForest<Integer> forest) {
+		for (int e = 0; e < forest.getEdgeCount(); e++) {
+			Integer forward = graph.getWeight(forest.getFrom(e), forest.getTo(e));
+			Integer backward = graph.getWeight(forest.getTo(e), forest.getFrom(e));
+			int cheapest = forward == null ? backward : backward == null ? forward : Math.min(forward, backward);
+			assertEquals(cheapest, forest.getWeight(e));
+		}
+	}
+	
+	/*
+	 * The edges of a forest as unordered pairs, to compare forests that list
+	 * their edges in different orders or directions.
+	 */
+	private static Set<String> edgeSet(SpanningForest<Integer> forest) {
+		Set<String> edges = new HashSet<String>();
+		for (int e = 0; e < forest.getEdgeCount(); e++) {
+			int from = forest.getFrom(e);
+			int to = forest.getTo(e);
+			edges.add(Math.min(from, to) + "-" + Math.max(from, to));
+		}
+		return edges;
+	}
+	
+	@Test
+	public void testMappedGraphRoundTrip() throws Exception {
+		WeightedGraph<Integer> graph = randomGraph(new Random(19), 50, 120);
+		Path file = Files.createTempFile("graph", ".bin");
+		try {
+			graph.save(file, VertexCodec.INTEGERS);
+			MappedGraph<Integer> mapped = MappedGraph.open(file, VertexCodec.INTEGERS);
+			assertEquals(50, mapped.getVertexCount());
+			assertFalse(mapped.containsVertex(50));
+			long edges = 0;
+			for (int from = 0; from < 50; from++) {
+				assertTrue(mapped.containsVertex(from));
+				for (int to = 0; to < 50; to++) {
+					assertEquals(graph.getWeight(from, to), mapped.getWeight(from, to));
+					assertEquals(graph.dijkstraDistance(from, to), mapped.dijkstraDistance(from, to));
+					List<Integer> path = mapped.dijkstraPath(from, to);
+					assertEquals(graph.dijkstraDistance(from, to) == null, path.isEmpty());
+					if (!path.isEmpty()) {
+						assertEquals((int) graph.dijkstraDistance(from, to), cost(graph, path));
+					}
+					if (graph.getWeight(from, to) != null) {
+						edges++;
+					}
+				}
+			}
+			assertEquals(edges, mapped.getEdgeCount());
+			WeightedGraph<Integer> loaded = mapped.toWeightedGraph();
+			for (int from = 0; from < 50; from++) {
+				for (int to = 0; to < 50; to++) {
+					assertEquals(graph.getWeight(from, to), loaded.getWeight(from, to));
+				}
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testMappedGraphRejectsBadFiles() throws Exception {
+		Path file = Files.createTempFile("graph", ".bin");
+		try {
+			Files.write(file, new byte[64]);
+			assertFalse(opens(file));
+			randomGraph(new Random(19), 50, 120).save(file, VertexCodec.INTEGERS);
+			assertTrue(opens(file));
+			byte[] good = Files.readAllBytes(file);
+			ByteBuffer header = ByteBuffer.wrap(good);
+			int edges = (int) header.getLong(16);
+			int targetsAt = 32 + 8 * 51;
+			int vertexOffsetsAt = targetsAt + 8 * edges + 4 * header.getInt(12);
+			
+			/* a hash table capacity that is not a power of two */
+			assertFalse(opensPatched(file, good, 12, 3));
+			/* an edge to a vertex that does not exist */
+			assertFalse(opensPatched(file, good, targetsAt, 50));
+			/* a negative weight */
+			assertFalse(opensPatched(file, good, targetsAt + 4 * edges, -1));
+			/* edge offsets that decrease */
+			assertFalse(opensPatched(file, good, 32 + 8 * 10 + 4, header.getInt(32 + 8 * 9 + 4) - 1));
+			/* a vertex that ends beyond the end of the file */
+			assertFalse(opensPatched(file, good, vertexOffsetsAt + 8 * 50 + 4, good.length));
+			/* a hash table entry past the last vertex */
+			assertFalse(opensPatched(file, good, targetsAt + 8 * edges, 51));
+			assertTrue(opensPatched(file, good, 0, header.getInt(0)));
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	private static boolean opens(Path file) {
+		try {
+			MappedGraph.open(file, VertexCodec.INTEGERS);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
+	/*
+	 * Write a copy of bytes with the int at position replaced, and try to open
+	 * it.
+	 */
+	private static boolean opensPatched(Path file, byte[] bytes, int position, int value) throws IOException {
+		byte[] patched = bytes.clone();
+		ByteBuffer.wrap(patched).putInt(position, value);
+		Files.write(file, patched);
+		return opens(file);
+	}
+	
+	@Test
+	public void testTiledMazeIsSpanningTree() {
+		int[][] sizes = { { 1, 1 }, { 1, 9 }, { 9, 1 }, { 10, 10 }, { 33, 47 } };
+		for (int[] size : sizes) {
+			for (int tileSize : new int[] { 1, 3, 8, 100 }) {
+				Maze maze = new Maze(size[0], size[1], 0, 23L, tileSize);
+				int junctures = size[0] * size[1];
+				MazeGraph graph = new MazeGraph(maze);
+				/* connected, with one undirected edge fewer than junctures: a tree */
+				assertEquals(junctures, graph.bfsTree(new Juncture(0, 0)).getReachedCount());
+				assertEquals(2 * (junctures - 1), graph.toCompactGraph().getEdgeCount());
+				assertTrue(sameMaze(maze, new Maze(size[0], size[1], 0, 23L, tileSize)));
+			}
+		}
+		assertFalse(sameMaze(new Maze(20, 20, 0, 23L, 5), new Maze(20, 20, 0, 24L, 5)));
+	}
+	
+	/*
+	 * True if both mazes have the same size, walls and weights.
+	 */
+	private static boolean sameMaze(Maze a, Maze b) {
+		if (a.getMazeWidth() != b.getMazeWidth() || a.getMazeHeight() != b.getMazeHeight()) {
+			return false;
+		}
+		for (int y = 0; y < a.getMazeHeight(); y++) {
+			for (int x = 0; x < a.getMazeWidth(); x++) {
+				if (a.isWallToRight(x, y) != b.isWallToRight(x, y) || a.isWallBelow(x, y) != b.isWallBelow(x, y)
+						|| a.isWallAbove(x, y) != b.isWallAbove(x, y) || a.isWallToLeft(x, y) != b.isWallToLeft(x, y)) {
+					return false;
+				}
+				if (x + 1 < a.getMazeWidth() && a.getWeightToRight(x, y) != b.getWeightToRight(x, y)) {
+					return false;
+				}
+				if (y + 1 < a.getMazeHeight() && a.getWeightBelow(x, y) != b.getWeightBelow(x, y)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	@Test
+	public void testPackedWallsAndWeightsAreConsistent() {
+		/* widths around multiples of 32 posts, so walls straddle the packed words */
+		int[][] sizes = { { 1, 1 }, { 31, 33 }, { 64, 63 }, { 5, 100 } };
+		for (int[] size : sizes) {
+			for (int sparcity : new int[] { 0, 40 }) {
+				Maze maze = new Maze(size[0], size[1], sparcity, 24L);
+				int width = maze.getMazeWidth();
+				int height = maze.getMazeHeight();
+				assertEquals(size[1], width);
+				assertEquals(size[0], height);
+				for (int y = 0; y < height; y++) {
+					for (int x = 0; x < width; x++) {
+						if (y == 0) {
+							assertTrue(maze.isWallAbove(x, y));
+						}
+						if (x == 0) {
+							assertTrue(maze.isWallToLeft(x, y));
+						}
+						if (x + 1 < width) {
+							assertEquals(maze.isWallToRight(x, y), maze.isWallToLeft(x + 1, y));
+							assertEquals(maze.getWeightToRight(x, y), maze.getWeightToLeft(x + 1, y));
+							assertTrue(maze.getWeightToRight(x, y) >= 1 && maze.getWeightToRight(x, y) <= 9);
+						} else {
+							assertTrue(maze.isWallToRight(x, y));
+						}
+						if (y + 1 < height) {
+							assertEquals(maze.isWallBelow(x, y), maze.isWallAbove(x, y + 1));
+							assertEquals(maze.getWeightBelow(x, y), maze.getWeightAbove(x, y + 1));
+							assertTrue(maze.getWeightBelow(x, y) >= 1 && maze.getWeightBelow(x, y) <= 9);
+						} else {
+							assertTrue(maze.isWallBelow(x, y));
+						}
+					}
+				}
+				MazeGraph graph = new MazeGraph(maze);
+				assertEquals(width * height, graph.bfsTree(new Juncture(0, 0)).getReachedCount());
+				if (sparcity == 0) {
+					assertEquals(2 * (width * height - 1), graph.toCompactGraph().getEdgeCount());
+				}
+				assertTrue(sameMaze(maze, new Maze(size[0], size[1], sparcity, 24L)));
+			}
+		}
+	}
+	
+	@Test
+	public void testMazeSaveAndOpen() throws Exception {
+		Path file = Files.createTempFile("maze", ".bin");
+		try {
+			for (int[] size : new int[][] { { 1, 1 }, { 31, 33 }, { 64, 63 } }) {
+				Maze maze = new Maze(size[0], size[1], 30, 25L);
+				maze.save(file);
+				Maze opened = Maze.open(file);
+				assertTrue(sameMaze(maze, opened));
+				/* an opened maze saves back to the same file */
+				Path copy = Files.createTempFile("maze", ".bin");
+				try {
+					opened.save(copy);
+					assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(copy));
+				} finally {
+					Files.delete(copy);
+				}
+				/* and over the file it was opened from, while still reading it */
+				opened.save(file);
+				assertTrue(sameMaze(maze, opened));
+				assertTrue(sameMaze(maze, Maze.open(file)));
+			}
+			byte[] bytes = Files.readAllBytes(file);
+			Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+			assertFalse(mazeOpens(file));
+			Files.write(file, new byte[64]);
+			assertFalse(mazeOpens(file));
+		} finally {
+			Files.delete(file);
+		}
+	}
+	
+	@Test
+	public void testMazeRejectsTooManyJunctures() {
+		boolean caught = false;
+		try {
+			new Maze(50000, 50000, 0, 25L);
+		} catch (IllegalArgumentException e) {
+			caught = true;
+		}
+		assertTrue(caught);
+	}
+	
+	private static boolean mazeOpens(Path file) {
+		try {
+			Maze.open(file);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
+	@Test
+	public void testSymmetricEdgesDoNotRebuildReachability() {
+		Random random = new Random(17);
+		WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+		for (int v = 0; v < 40; v++) {
+			graph.addVertex(v);
+		}
+		assertFalse(graph.isReachable(0, 1));
+		long rebuilds = graph.getReachabilityRebuildCount();
+		for (int edge = 0; edge < 30; edge++) {
+			int from = random.nextInt(40);
+			int to = random.nextInt(40);
+			int weight = 1 + random.nextInt(9);
+			graph.addEdge(from, to, weight);
+			graph.addEdge(to, from, weight + 1);
+			checkReachability(graph, 40);
+		}
+		assertEquals(rebuilds, graph.getReachabilityRebuildCount());
+		
+		// a query while an edge still lacks its reverse must relabel the graph
+		graph.addVertex(40);
+		graph.addEdge(0, 40, 1);
+		assertTrue(graph.isReachable(0, 40));
+		assertEquals(rebuilds + 1, graph.getReachabilityRebuildCount());
+	}
+	
+	@Test
+	public void testSparcityDoesNotOverflow() {
+		// 1000 * 1000 * 2200 is more than Integer.MAX_VALUE, so an int product
+		// would go negative and no walls would be removed
+		Maze perfect = new Maze(1000, 1000, 0, 26L);
+		Maze sparse = new Maze(1000, 1000, 2200, 26L);
+		long perfectWalls = interiorWalls(perfect);
+		long sparseWalls = interiorWalls(sparse);
+		assertTrue(perfectWalls > 900000);
+		assertTrue(sparseWalls < perfectWalls / 100);
+	}
+	
+	/*
+	 * Number of wall segments between neighboring junctures of a maze.
+	 */
+	private static long interiorWalls(Maze maze) {
+		long walls = 0;
+		for (int y = 0; y < maze.getMazeHeight(); y++) {
+			for (int x = 0; x < maze.getMazeWidth(); x++) {
+				if (x > 0 && maze.isWallToLeft(x, y)) {
+					walls++;
+				}
+				if (y > 0 && maze.isWallAbove(x, y)) {
+					walls++;
+				}
+			}
+		}
+		return walls;
+	}
+	
+	@Test
+	public void testAsyncObserverBlockDeliversInOrder() throws InterruptedException {
+		Recorder<Integer> recorder = new Recorder<Integer>();
+		AsyncObserver<Integer> async = new AsyncObserver<Integer>(recorder, 4, AsyncObserver.BackPressure.BLOCK);
+		async.notifyBFSHasBegun();
+		for (int v = 0; v < 10000; v++) {
+			async.notifyVisit(v);
+		}
+		async.notifySearchIsOver();
+		async.flush();
+		assertEquals(10000, recorder.visits.size());
+		for (int v = 0; v < 10000; v++) {
+			assertEquals(v, (int) recorder.visits.get(v));
+		}
+		assertTrue(recorder.searchOver);
+		assertEquals(10002, async.getDeliveredCount());
+		assertEquals(0, async.getDroppedCount());
+		async.close();
+	}
+	
+	@Test
+	public void testAsyncObserverDropNeverBlocks() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		Recorder<Integer> recorder = new Recorder<Integer>() {
+			
+			@Override
+			public void notifyVisit(Integer vertex) {
+				awaitQuietly(release);
+				super.notifyVisit(vertex);
+			}
+		};
+		final AsyncObserver<Integer> async = new AsyncObserver<Integer>(recorder, 4, AsyncObserver.BackPressure.DROP);
+		Thread producer = new Thread(new Runnable() {
+			
+			@Override
+			public void run() {
+				for (int v = 0; v < 10000; v++) {
+					async.notifyVisit(v);
+				}
+			}
+		});
+		producer.start();
+		producer.join(10000);
+		assertFalse(producer.isAlive());
+		release.countDown();
+		async.flush();
+		assertTrue(async.getDroppedCount() > 0);
+		assertEquals(10000, async.getDeliveredCount() + async.getDroppedCount());
+		assertEquals(async.getDeliveredCount(), recorder.visits.size());
+		async.close();
+	}
+	
+	@Test
+	public void testAsyncObserverCoalesceStaysBounded() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		Recorder<Integer> recorder = new Recorder<Integer>() {
+			
+			@Override
+			public void notifyVisit(Integer vertex) {
+				awaitQuietly(release);
+				super.notifyVisit(vertex);
+			}
+		};
+		final AsyncObserver<Integer> async = new AsyncObserver<Integer>(recorder, 4, AsyncObserver.BackPressure.COALESCE);
+		final int[] sent = new int[1];
+		Thread producer = new Thread(new Runnable() {
+			
+			@Override
+			public void run() {
+				for (int v = 0; v < 1000; v++) {
+					async.notifyVisit(v);
+					sent[0] = v + 1;
+				}
+			}
+		});
+		producer.start();
+		
+		// the buffer, the batch in it and the overflow batch hold only a few
+		// times the capacity, so the producer must wait for the stuck consumer
+		producer.join(500);
+		assertTrue(producer.isAlive());
+		release.countDown();
+		producer.join();
+		assertEquals(1000, sent[0]);
+		async.flush();
+		assertEquals(1000, recorder.visits.size());
+		for (int v = 0; v < 1000; v++) {
+			assertEquals(v, (int) recorder.visits.get(v));
+		}
+		assertEquals(0, async.getDroppedCount());
+		async.close();
+	}
+	
+	@Test
+	public void testAsyncObserverCloseDeliversPendingEvents() throws InterruptedException {
+		for (AsyncObserver.BackPressure policy : AsyncObserver.BackPressure.values()) {
+			final CountDownLatch release = new CountDownLatch(1);
+			Recorder<Integer> recorder = new Recorder<Integer>() {
+				
+				@Override
+				public void notifyDijkstraVertexFinished(Integer vertex, Integer costOfPath) {
+					awaitQuietly(release);
+					super.notifyDijkstraVertexFinished(vertex, costOfPath);
+				}
+			};
+			AsyncObserver<Integer> async = new AsyncObserver<Integer>(recorder, 64, policy);
+			async.notifyDijkstraHasBegun();
+			for (int v = 0; v < 50; v++) {
+				async.notifyDijkstraVertexFinished(v, 2 * v);
+			}
+			async.notifyDijkstraIsOver(Arrays.asList(0, 49));
+			async.close();
+			
+			// events notified after close are ignored
+			async.notifyDijkstraVertexFinished(50, 100);
+			release.countDown();
+			async.flush();
+			assertEquals(52, async.getDeliveredCount());
+			assertEquals(50, recorder.finished.size());
+			assertEquals(Arrays.asList(0, 49), recorder.path);
+		}
+	}
+	
+	/*
+	 * Wait for a latch on an observer's consumer thread.
+	 */
+	private static void awaitQuietly(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	@Test
+	public void testContractionHierarchyLoadRejectsBadData() throws IOException {
+		WeightedGraph<Integer> graph = randomGraph(new Random(9), 40, 80);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		graph.toContractionHierarchy().save(out, VertexCodec.INTEGERS);
+		byte[] bytes = out.toByteArray();
+		assertTrue(hierarchyLoads(bytes));
+		assertFalse(hierarchyLoads(Arrays.copyOf(bytes, bytes.length / 2)));
+		
+		byte[] badMagic = bytes.clone();
+		badMagic[0] ^= 1;
+		assertFalse(hierarchyLoads(badMagic));
+		
+		// give the second vertex the same rank as the first
+		byte[] badRank = bytes.clone();
+		System.arraycopy(bytes, 24, badRank, 28, 4);
+		assertFalse(hierarchyLoads(badRank));
+		
+		// a vertex count far beyond the data must not be allocated up front
+		byte[] badCount = bytes.clone();
+		badCount[8] = 0x7f;
+		assertFalse(hierarchyLoads(badCount));
+	}
+	
+	private static boolean hierarchyLoads(byte[] bytes) {
+		try {
+			ContractionHierarchy.load(new ByteArrayInputStream(bytes), VertexCodec.INTEGERS);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+	
+	@Test
+	public void testGridMazeGraphMatchesMazeGraph() {
+		Maze maze = new Maze(30, 40, 30, 27L);
+		MazeGraph graph = new MazeGraph(maze);
+		GridMazeGraph grid = new GridMazeGraph(maze);
+		Recorder<Juncture> expected = new Recorder<Juncture>();
+		Recorder<Juncture> actual = new Recorder<Juncture>();
+		graph.addObserver(expected);
+		grid.addObserver(actual);
+		Random random = new Random(27);
+		for (int query = 0; query < 10; query++) {
+			Juncture start = new Juncture(random.nextInt(40), random.nextInt(30));
+			Juncture end = new Juncture(random.nextInt(40), random.nextInt(30));
+			graph.DoBFS(start, end);
+			grid.DoBFS(start, end);
+			assertEquals(expected.visits, actual.visits);
+			expected.clear();
+			actual.clear();
+			graph.DoDFS(start, end);
+			grid.DoDFS(start, end);
+			assertEquals(expected.visits, actual.visits);
+			expected.clear();
+			actual.clear();
+			graph.DoDijsktra(start, end);
+			grid.DoDijsktra(start, end);
+			assertEquals(expected.finished, actual.finished);
+			assertEquals(expected.path, actual.path);
+			expected.clear();
+			actual.clear();
+		}
+		
+		// neighbors are examined right, down, left, up
+		Juncture center = null;
+		for (int y = 1; y < 29 && center == null; y++) {
+			for (int x = 1; x < 39 && center == null; x++) {
+				if (!maze.isWallToRight(x, y) && !maze.isWallBelow(x, y) && !maze.isWallToLeft(x, y)
+						&& !maze.isWallAbove(x, y)) {
+					center = new Juncture(x, y);
+				}
+			}
+		}
+		assertNotNull(center);
+		int x = center.getX(), y = center.getY();
+		grid.DoBFS(center, new Juncture(0, 0));
+		assertEquals(Arrays.asList(center, new Juncture(x + 1, y), new Juncture(x, y + 1), new Juncture(x - 1, y),
+				new Juncture(x, y - 1)), actual.visits.subList(0, 5));
+		graph.DoBFS(center, new Juncture(0, 0));
+		assertEquals(actual.visits.subList(0, 5), expected.visits.subList(0, 5));
+	}
+	
+	@Test
+	public void testParallelBFSMatchesSerialBFS() {
+		Random random = new Random(28);
+		
+		// a sparse graph starts top-down; a hub with a thousand out-edges
+		// makes the first step bottom-up, and later levels switch back
+		WeightedGraph<Integer> sparse = randomGraph(random, 2000, 4000);
+		WeightedGraph<Integer> hub = randomGraph(random, 2000, 4000);
+		for (int v = 1; v < 1000; v++) {
+			hub.addEdge(0, v, 1);
+		}
+		for (WeightedGraph<Integer> graph : Arrays.asList(sparse, hub)) {
+			CompactGraph<Integer> compact = graph.toCompactGraph();
+			final List<Set<Integer>> reported = new ArrayList<Set<Integer>>();
+			Recorder<Integer> recorder = new Recorder<Integer>() {
+				
+				@Override
+				public void notifyLevelVisited(List<Integer> level) {
+					reported.add(new HashSet<Integer>(level));
+				}
+			};
+			graph.addObserver(recorder);
+			for (int start = 0; start < 2000; start += 400) {
+				ShortestPathTree<Integer> tree = graph.bfsTree(start);
+				int[] levels = compact.getBFSLevels(start);
+				int deepest = start;
+				for (int v = 0; v < 2000; v++) {
+					int expected = tree.isReachable(v) ? tree.getDistance(v) : -1;
+					assertEquals(expected, levels[compact.indexOf(v)]);
+					if (expected > tree.getDistance(deepest)) {
+						deepest = v;
+					}
+				}
+				
+				reported.clear();
+				recorder.clear();
+				graph.DoParallelBFS(start, deepest);
+				assertTrue(recorder.searchOver);
+				assertEquals(tree.getDistance(deepest) + 1, reported.size());
+				for (int depth = 0; depth < reported.size(); depth++) {
+					Set<Integer> expected = new HashSet<Integer>();
+					for (int v = 0; v < 2000; v++) {
+						if (tree.isReachable(v) && tree.getDistance(v) == depth) {
+							expected.add(v);
+						}
+					}
+					assertEquals(expected, reported.get(depth));
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void testShortestPathsMatchesDijkstraPath() {
+		Random random = new Random(29);
+		WeightedGraph<Integer> graph = randomGraph(random, 300, 1500);
+		List<PathQuery<Integer>> queries = new ArrayList<PathQuery<Integer>>();
+		for (int q = 0; q < 400; q++) {
+			// few distinct starts, so most queries share a tree
+			queries.add(new PathQuery<Integer>(random.nextInt(20), random.nextInt(300)));
+		}
+		List<List<Integer>> paths = graph.shortestPaths(queries);
+		assertEquals(queries.size(), paths.size());
+		for (int q = 0; q < queries.size(); q++) {
+			PathQuery<Integer> query = queries.get(q);
+			assertEquals(graph.dijkstraPath(query.getStart(), query.getEnd()), paths.get(q));
+		}
+		
+		boolean caught = false;
+		try {
+			graph.shortestPaths(Arrays.asList(new PathQuery<Integer>(0, 300)));
+		} catch (IllegalArgumentException e) {
+			caught = true;
+		}
+		assertTrue(caught);
+	}
+	
+	@Test
+	public void testConcurrentQueriesMatchSequential() throws InterruptedException {
+		Random random = new Random(30);
+		final WeightedGraph<Integer> graph = randomGraph(random, 300, 1500);
+		final int[][] queries = new int[200][2];
+		final List<List<Integer>> expectedPaths = new ArrayList<List<Integer>>();
+		final List<Integer> expectedDistances = new ArrayList<Integer>();
+		for (int[] query : queries) {
+			query[0] = random.nextInt(300);
+			query[1] = random.nextInt(300);
+			expectedPaths.add(graph.dijkstraPath(query[0], query[1]));
+			expectedDistances.add(graph.dijkstraDistance(query[0], query[1]));
+		}
+		final boolean[] matched = new boolean[8];
+		Thread[] threads = new Thread[matched.length];
+		for (int t = 0; t < threads.length; t++) {
+			final int id = t;
+			threads[t] = new Thread(new Runnable() {
+				
+				@Override
+				public void run() {
+					boolean same = true;
+					for (int round = 0; round < 5; round++) {
+						// each thread walks the queries from a different offset
+						for (int i = 0; i < queries.length; i++) {
+							int q = (i + id * 25) % queries.length;
+							same &= expectedPaths.get(q).equals(graph.dijkstraPath(queries[q][0], queries[q][1]));
+							Integer distance = graph.dijkstraDistance(queries[q][0], queries[q][1]);
+							same &= distance == null ? expectedDistances.get(q) == null
+									: distance.equals(expectedDistances.get(q));
+						}
+					}
+					matched[id] = same;
+				}
+			});
+			threads[t].start();
+		}
+		for (int t = 0; t < threads.length; t++) {
+			threads[t].join();
+			assertTrue(matched[t]);
+		}
+	}
+	
+	@Test
+	public void testAStarMatchesDijkstraCost() {
+		Maze maze = new Maze(40, 50, 40, 31L);
+		MazeGraph graph = new MazeGraph(maze);
+		Recorder<Juncture> recorder = new Recorder<Juncture>();
+		graph.addObserver(recorder);
+		Random random = new Random(31);
+		for (int query = 0; query < 20; query++) {
+			Juncture start = new Juncture(random.nextInt(50), random.nextInt(40));
+			Juncture end = new Juncture(random.nextInt(50), random.nextInt(40));
+			graph.DoDijsktra(start, end);
+			List<Juncture> dijkstra = new ArrayList<Juncture>(recorder.path);
+			int dijkstraFinished = recorder.finished.size();
+			recorder.clear();
+			
+			graph.DoAStar(start, end);
+			assertEquals(start, recorder.path.get(0));
+			assertEquals(end, recorder.path.get(recorder.path.size() - 1));
+			assertEquals(cost(graph, dijkstra), cost(graph, recorder.path));
+			assertTrue(recorder.finished.size() <= dijkstraFinished);
+			recorder.clear();
+			
+			graph.DoAStar(start, end, graph.manhattanHeuristic());
+			assertEquals(cost(graph, dijkstra), cost(graph, recorder.path));
+			recorder.clear();
+		}
+	}
+	
+	@Test
+	public void testCompactGraphDijkstraMatchesWeightedGraph() {
+		Random random = new Random(32);
+		WeightedGraph<Integer> graph = randomGraph(random, 200, 800);
+		CompactGraph<Integer> compact = graph.toCompactGraph();
+		Recorder<Integer> recorder = new Recorder<Integer>();
+		compact.addObserver(recorder);
+		for (int query = 0; query < 50; query++) {
+			int start = random.nextInt(200);
+			int end = random.nextInt(200);
+			compact.DoDijsktra(start, end);
+			List<Integer> expected = graph.dijkstraPath(start, end);
+			assertEquals(expected.isEmpty(), recorder.path.isEmpty());
+			assertEquals(cost(graph, expected), cost(graph, recorder.path));
+			assertEquals(graph.dijkstraTree(start).getReachedCount(), recorder.finished.size());
+			recorder.clear();
+		}
+	}
+	
+	@Test
+	public void testDynamicShortestPathTreeSeesDirectChanges() {
+		Random random = new Random(33);
+		WeightedGraph<Integer> graph = randomGraph(random, 30, 60);
+		DynamicShortestPathTree<Integer> tree = graph.dynamicShortestPathTree(0);
+		for (int change = 0; change < 60; change++) {
+			int from = random.nextInt(30);
+			int to = random.nextInt(30);
+			if (change % 10 == 9) {
+				graph.addVertex(30 + change);
+				graph.addEdge(from, 30 + change, 1);
+			} else if (change % 3 == 0) {
+				graph.removeEdge(from, to);
+			} else if (change % 3 == 1) {
+				graph.addEdge(from, to, 1 + random.nextInt(9));
+			} else {
+				tree.setEdge(from, to, 1 + random.nextInt(9));
+			}
+			for (int v = 0; v < 30; v++) {
+				assertEquals(graph.dijkstraDistance(0, v), tree.getDistance(v));
+			}
+			if (change % 10 == 9) {
+				assertEquals(graph.dijkstraDistance(0, 30 + change), tree.getDistance(30 + change));
+			}
+		}
+	}
+	
+	@Test
+	public void testUnknownVerticesAreRejectedBeforeObserversAreNotified() {
+		WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+		for (int i = 0; i < 3; i++) {
+			graph.addVertex(i);
+		}
+		graph.addEdge(0, 1, 1);
+		graph.addEdge(1, 2, 1);
+		final int[] begun = new int[1];
+		graph.addObserver(new Recorder<Integer>() {
+
+			@Override
+			public void notifyBFSHasBegun() {
+				begun[0]++;
+			}
+
+			@Override
+			public void notifyDFSHasBegun() {
+				begun[0]++;
+			}
+
+			@Override
+			public void notifyDijkstraHasBegun() {
+				begun[0]++;
+			}
+		});
+		Heuristic<Integer> zero = new Heuristic<Integer>() {
+
+			@Override
+			public int estimate(Integer vertex, Integer goal) {
+				return 0;
+			}
+		};
+		// twice each, so that both the map walk and the cached CSR copy are used
+		for (int round = 0; round < 2; round++) {
+			for (int which = 0; which < 4; which++) {
+				boolean caught = false;
+				try {
+					switch (which) {
+					case 0:
+						graph.DoBFS(0, 7);
+						break;
+					case 1:
+						graph.DoDFS(7, 0);
+						break;
+					case 2:
+						graph.DoDijsktra(0, 7);
+						break;
+					default:
+						graph.DoAStar(7, 0, zero);
+					}
+				} catch (IllegalArgumentException e) {
+					caught = true;
+				}
+				assertTrue(caught);
+			}
+		}
+		assertEquals(0, begun[0]);
+	}
+	
+	/*
+	 * A directed graph on vertices 0 to vertexCount - 1 with random edges and
+	 * weights from 1 to 9; with few edges, many pairs are unreachable.
+	 */
+	private static WeightedGraph<Integer> randomGraph(Random random, int vertexCount, int edgeCount) {
+		WeightedGraph<Integer> graph = new WeightedGraph<Integer>();
+		for (int v = 0; v < vertexCount; v++) {
+			graph.addVertex(v);
+		}
+		for (int e = 0; e < edgeCount; e++) {
+			graph.addEdge(random.nextInt(vertexCount), random.nextInt(vertexCount), 1 + random.nextInt(9));
+		}
+		return graph;
+	}
+	
+	/*
+	 * Total weight of a path, failing if any of its edges is missing.
+	 */
+	private static <V> int cost(WeightedGraph<V> graph, List<V> path) {
+		int total = 0;
+		for (int i = 0; i + 1 < path.size(); i++) {
+			Integer weight = graph.getWeight(path.get(i), path.get(i + 1));
+			assertNotNull(weight);
+			total += weight;
+		}
+		return total;
+	}
+	
+	/*
+	 * Records the visits, finished vertices and path reported to it.
+	 */
+	private static class Recorder<V> implements GraphAlgorithmObserver<V> {
+		final List<V> visits = new ArrayList<V>();
+		final List<V> finished = new ArrayList<V>();
+		final List<V> path = new ArrayList<V>();
+		boolean searchOver;
+
+		void clear() {
+			visits.clear();
+			finished.clear();
+			path.clear();
+			searchOver = false;
+		}
+
+		public void notifyDFSHasBegun() {
+		}
+
+		public void notifyBFSHasBegun() {
+		}
+
+		public void notifyVisit(V vertexBeingVisited) {
+			visits.add(vertexBeingVisited);
+		}
+
+		public void notifySearchIsOver() {
+			searchOver = true;
+		}
+
+		public void notifyDijkstraHasBegun() {
+		}
+
+		public void notifyDijkstraVertexFinished(V vertex, Integer costOfPath) {
+			finished.add(vertex);
+		}
+
+		public void notifyDijkstraIsOver(List<V> p) {
+			path.addAll(p);
+		}
+	}
+
+}
\ No newline at end of file